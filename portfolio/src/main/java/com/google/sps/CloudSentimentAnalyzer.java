@@ -0,0 +1,43 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.cloud.language.v1.Document;
+import com.google.cloud.language.v1.LanguageServiceClient;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scores sentiment with the Cloud Natural Language API. The API takes one document per call, so
+ * every text is a separate call over the same client.
+ */
+public final class CloudSentimentAnalyzer implements SentimentAnalyzer {
+  private final LanguageServiceClient languageService;
+
+  public CloudSentimentAnalyzer(LanguageServiceClient languageService) {
+    this.languageService = languageService;
+  }
+
+  @Override
+  public List<Float> analyze(List<String> texts) {
+    List<Float> scores = new ArrayList<>(texts.size());
+    for (String text : texts) {
+      Document doc =
+          Document.newBuilder().setContent(text).setType(Document.Type.PLAIN_TEXT).build();
+      scores.add(languageService.analyzeSentiment(doc).getDocumentSentiment().getScore());
+    }
+    return scores;
+  }
+}
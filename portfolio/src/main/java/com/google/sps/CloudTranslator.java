@@ -0,0 +1,40 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.cloud.translate.Translate;
+import com.google.cloud.translate.Translation;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Translates text with the Cloud Translation API, sending each list in a single request. */
+public final class CloudTranslator implements Translator {
+  private final Translate translate;
+
+  public CloudTranslator(Translate translate) {
+    this.translate = translate;
+  }
+
+  @Override
+  public List<String> translate(List<String> texts, String targetLanguage) {
+    List<Translation> translations =
+        translate.translate(texts, Translate.TranslateOption.targetLanguage(targetLanguage));
+    List<String> translatedTexts = new ArrayList<>(translations.size());
+    for (Translation translation : translations) {
+      translatedTexts.add(translation.getTranslatedText());
+    }
+    return translatedTexts;
+  }
+}
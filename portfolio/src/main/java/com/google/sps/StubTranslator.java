@@ -0,0 +1,33 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pretends to translate by tagging each text with the target language, e.g. "[fr] hello". Use it
+ * to run the site locally without Cloud credentials.
+ */
+public final class StubTranslator implements Translator {
+  @Override
+  public List<String> translate(List<String> texts, String targetLanguage) {
+    List<String> translatedTexts = new ArrayList<>(texts.size());
+    for (String text : texts) {
+      translatedTexts.add("[" + targetLanguage + "] " + text);
+    }
+    return translatedTexts;
+  }
+}
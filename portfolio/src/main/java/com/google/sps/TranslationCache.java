@@ -0,0 +1,180 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.appengine.api.datastore.AsyncDatastoreService;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Text;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Remembers translations in two tiers: a size-bounded, least recently used map in memory, and
+ * {@value #KIND} entities in Datastore next to the comments, so they outlive the instance.
+ * Translations are keyed by the target language and a SHA-256 hash of the message, so an edited
+ * message is translated again and an unchanged one never is.
+ *
+ * <p>Nothing warms the cache ahead of time. New comments are already translated into the popular
+ * languages when they are posted and read straight from the comment, so only the rare languages
+ * reach this cache, and those are filled by the first reader who asks for them.
+ */
+public final class TranslationCache {
+  public static final String KIND = "translation";
+  public static final int DEFAULT_CAPACITY = 10000;
+
+  private static final Logger logger = Logger.getLogger(TranslationCache.class.getName());
+
+  // Datastore takes at most 1000 keys per get and 500 entities per put.
+  private static final int MAX_BATCH_SIZE = 500;
+
+  private final AsyncDatastoreService datastore;
+  private final Map<String, String> memory;
+
+  public TranslationCache(AsyncDatastoreService datastore, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.datastore = datastore;
+    this.memory = new LinkedHashMap<String, String>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the translations of {@code messages} into {@code language} that either tier holds.
+   * Messages missing from memory are looked up in Datastore in concurrent batches, and the ones
+   * found there are kept in memory from then on.
+   */
+  public Map<String, String> getAll(Collection<String> messages, String language) {
+    Map<String, String> found = new HashMap<>();
+    Map<Key, String> missing = new HashMap<>();
+    synchronized (memory) {
+      for (String message : messages) {
+        String name = keyName(message, language);
+        String translation = memory.get(name);
+        if (translation != null) {
+          found.put(message, translation);
+        } else {
+          missing.put(KeyFactory.createKey(KIND, name), message);
+        }
+      }
+    }
+    if (missing.isEmpty()) {
+      return found;
+    }
+
+    List<Future<Map<Key, Entity>>> batches = new ArrayList<>();
+    for (List<Key> batch : partition(new ArrayList<>(missing.keySet()))) {
+      batches.add(datastore.get(batch));
+    }
+    for (Future<Map<Key, Entity>> batch : batches) {
+      Map<Key, Entity> stored;
+      try {
+        stored = batch.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return found;
+      } catch (ExecutionException e) {
+        // The cache only saves work, so a Datastore failure just means translating again.
+        continue;
+      }
+      synchronized (memory) {
+        for (Map.Entry<Key, Entity> entry : stored.entrySet()) {
+          String translation = ((Text) entry.getValue().getProperty("translation")).getValue();
+          found.put(missing.get(entry.getKey()), translation);
+          memory.put(entry.getKey().getName(), translation);
+        }
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Remembers {@code translations}, from message to translated text, into {@code language}. They
+   * are in memory right away and written to Datastore in concurrent batches. A batch that fails to
+   * write is logged and dropped, since the translation can always be made again.
+   */
+  public void putAll(Map<String, String> translations, String language) {
+    if (translations.isEmpty()) {
+      return;
+    }
+    List<Entity> entities = new ArrayList<>(translations.size());
+    synchronized (memory) {
+      for (Map.Entry<String, String> translation : translations.entrySet()) {
+        String name = keyName(translation.getKey(), language);
+        memory.put(name, translation.getValue());
+
+        Entity entity = new Entity(KIND, name);
+        entity.setProperty("language", language);
+        entity.setProperty("translation", new Text(translation.getValue()));
+        entities.add(entity);
+      }
+    }
+    List<Future<List<Key>>> writes = new ArrayList<>();
+    for (List<Entity> batch : partition(entities)) {
+      writes.add(datastore.put(batch));
+    }
+    for (Future<List<Key>> write : writes) {
+      try {
+        write.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException e) {
+        logger.log(Level.WARNING, "Could not store translations into " + language, e.getCause());
+      }
+    }
+  }
+
+  /** Splits {@code items} into consecutive batches Datastore accepts in a single call. */
+  static <T> List<List<T>> partition(List<T> items) {
+    List<List<T>> batches = new ArrayList<>();
+    for (int from = 0; from < items.size(); from += MAX_BATCH_SIZE) {
+      batches.add(items.subList(from, Math.min(from + MAX_BATCH_SIZE, items.size())));
+    }
+    return batches;
+  }
+
+  /** Returns the key both tiers store the translation of {@code message} into {@code language}. */
+  static String keyName(String message, String language) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      StringBuilder name = new StringBuilder(language).append(':');
+      for (byte b : digest.digest(message.getBytes(StandardCharsets.UTF_8))) {
+        name.append(String.format("%02x", b));
+      }
+      return name.toString();
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,167 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Translates a page worth of messages in a few round trips. Duplicate messages are translated
+ * once, messages the {@link TranslationCache} already knows are not translated at all, the rest
+ * are split into batches, and the batches are sent at the same time on a bounded pool of threads.
+ */
+public final class TranslationPipeline {
+  // The Cloud Translation API accepts up to 128 texts per request.
+  public static final int DEFAULT_BATCH_SIZE = 128;
+
+  private final Translator translator;
+  private final ExecutorService executor;
+  private final int batchSize;
+  // Null to translate every message on every call.
+  private final TranslationCache cache;
+
+  public TranslationPipeline(Translator translator, TranslationCache cache,
+      ExecutorService executor, int batchSize) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("batchSize must be positive");
+    }
+    this.translator = translator;
+    this.cache = cache;
+    this.executor = executor;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Returns a map from each of {@code messages} to its translation into {@code targetLanguage}.
+   *
+   * @throws IOException if a batch could not be translated
+   */
+  public Map<String, String> translateAll(Collection<String> messages, String targetLanguage)
+      throws IOException {
+    Map<String, String> translations = new HashMap<>();
+    Collection<String> unique = new LinkedHashSet<>(messages);
+    if (cache != null) {
+      translations.putAll(cache.getAll(unique, targetLanguage));
+      unique.removeAll(translations.keySet());
+    }
+    Map<String, String> translated = translate(new ArrayList<>(unique), targetLanguage);
+    if (cache != null) {
+      cache.putAll(translated, targetLanguage);
+    }
+    translations.putAll(translated);
+    return translations;
+  }
+
+  /**
+   * Returns the translations of {@code message} into each of {@code languages}, keyed by language.
+   * The languages are translated at the same time.
+   *
+   * @throws IOException if a language could not be translated
+   */
+  public Map<String, String> translateIntoEach(String message, Collection<String> languages)
+      throws IOException {
+    Map<String, String> translations = new HashMap<>();
+    List<String> missing = new ArrayList<>();
+    for (String language : languages) {
+      String cached = null;
+      if (cache != null) {
+        cached = cache.getAll(Collections.singletonList(message), language).get(message);
+      }
+      if (cached != null) {
+        translations.put(language, cached);
+      } else {
+        missing.add(language);
+      }
+    }
+
+    List<Future<List<String>>> futures = new ArrayList<>(missing.size());
+    for (String language : missing) {
+      futures.add(executor.submit(
+          () -> translator.translate(Collections.singletonList(message), language)));
+    }
+    List<List<String>> translated = awaitAll(futures);
+    for (int i = 0; i < missing.size(); i++) {
+      String language = missing.get(i);
+      translations.put(language, translated.get(i).get(0));
+      if (cache != null) {
+        cache.putAll(Collections.singletonMap(message, translated.get(i).get(0)), language);
+      }
+    }
+    return translations;
+  }
+
+  private Map<String, String> translate(List<String> unique, String targetLanguage)
+      throws IOException {
+    List<List<String>> batches = new ArrayList<>();
+    for (int start = 0; start < unique.size(); start += batchSize) {
+      batches.add(unique.subList(start, Math.min(start + batchSize, unique.size())));
+    }
+
+    List<Future<List<String>>> futures = new ArrayList<>(batches.size());
+    for (List<String> batch : batches) {
+      futures.add(executor.submit(() -> translator.translate(batch, targetLanguage)));
+    }
+
+    List<List<String>> translated = awaitAll(futures);
+    Map<String, String> translations = new HashMap<>();
+    for (int i = 0; i < batches.size(); i++) {
+      List<String> batch = batches.get(i);
+      for (int j = 0; j < batch.size(); j++) {
+        translations.put(batch.get(j), translated.get(i).get(j));
+      }
+    }
+    return translations;
+  }
+
+  /** Waits for every one of {@code futures}, cancelling the rest if one fails. */
+  private static List<List<String>> awaitAll(List<Future<List<String>>> futures)
+      throws IOException {
+    List<List<String>> results = new ArrayList<>(futures.size());
+    try {
+      for (Future<List<String>> future : futures) {
+        results.add(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      cancel(futures);
+      throw new InterruptedIOException("Interrupted while translating");
+    } catch (ExecutionException e) {
+      cancel(futures);
+      throw new IOException("Could not translate comments", e.getCause());
+    } catch (CancellationException e) {
+      // The app is stopping and dropped the call before it ran.
+      cancel(futures);
+      throw new IOException("Translation was cancelled", e);
+    }
+    return results;
+  }
+
+  private static void cancel(List<? extends Future<?>> futures) {
+    for (Future<?> future : futures) {
+      future.cancel(true);
+    }
+  }
+}
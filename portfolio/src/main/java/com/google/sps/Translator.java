@@ -0,0 +1,26 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.List;
+
+/** Translates text, many messages per call. */
+public interface Translator {
+  /**
+   * Returns the translations of {@code texts} into {@code targetLanguage}, in the same order.
+   * Implementations should answer the whole list in as few round trips as they can.
+   */
+  List<String> translate(List<String> texts, String targetLanguage);
+}
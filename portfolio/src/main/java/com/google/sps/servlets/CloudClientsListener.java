@@ -0,0 +1,163 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.cloud.language.v1.LanguageServiceClient;
+import com.google.cloud.translate.TranslateOptions;
+import com.google.sps.CloudSentimentAnalyzer;
+import com.google.sps.CloudTranslator;
+import com.google.sps.SentimentAnalyzer;
+import com.google.sps.StubSentimentAnalyzer;
+import com.google.sps.StubTranslator;
+import com.google.sps.TranslationCache;
+import com.google.sps.TranslationPipeline;
+import com.google.sps.Translator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Creates the Cloud Translation and Natural Language clients once when the app starts and shares
+ * them with every servlet, so requests reuse their connections instead of opening new ones. Calls
+ * to the APIs run on one bounded pool of threads, so a burst of requests cannot open an unbounded
+ * number of calls. When the app stops, calls already started are given time to finish before the
+ * clients are closed.
+ */
+@WebListener
+public class CloudClientsListener implements ServletContextListener {
+  // Set these system properties to true to run without Cloud credentials.
+  public static final String STUB_TRANSLATOR_PROPERTY = "com.google.sps.stubTranslator";
+  public static final String STUB_SENTIMENT_PROPERTY = "com.google.sps.stubSentiment";
+
+  private static final String TRANSLATION_PIPELINE = "com.google.sps.translationPipeline";
+  private static final String SENTIMENT_ANALYZER = "com.google.sps.sentimentAnalyzer";
+  private static final String API_EXECUTOR = "com.google.sps.apiExecutor";
+
+  // At most this many API calls run at once. Calls waiting beyond the queue run on the caller,
+  // and calls submitted once the app is stopping fail.
+  private static final int API_THREADS = 8;
+  private static final int API_QUEUE_CAPACITY = 64;
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+  private LanguageServiceClient languageService;
+  private ExecutorService executor;
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    executor = new ThreadPoolExecutor(API_THREADS, API_THREADS, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<Runnable>(API_QUEUE_CAPACITY), new CallerRunsUnlessShutDown());
+
+    Translator translator = Boolean.getBoolean(STUB_TRANSLATOR_PROPERTY)
+        ? new StubTranslator()
+        : new CloudTranslator(TranslateOptions.getDefaultInstance().getService());
+    // Comments rarely change, so translations are reused across requests, visitors and restarts.
+    TranslationCache cache = new TranslationCache(
+        DatastoreServiceFactory.getAsyncDatastoreService(), TranslationCache.DEFAULT_CAPACITY);
+
+    SentimentAnalyzer analyzer;
+    if (Boolean.getBoolean(STUB_SENTIMENT_PROPERTY)) {
+      analyzer = new StubSentimentAnalyzer();
+    } else {
+      try {
+        languageService = LanguageServiceClient.create();
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not create the Natural Language client", e);
+      }
+      analyzer = new CloudSentimentAnalyzer(languageService);
+    }
+
+    ServletContext context = event.getServletContext();
+    context.setAttribute(API_EXECUTOR, executor);
+    context.setAttribute(TRANSLATION_PIPELINE, new TranslationPipeline(
+        translator, cache, executor, TranslationPipeline.DEFAULT_BATCH_SIZE));
+    context.setAttribute(SENTIMENT_ANALYZER, analyzer);
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    ServletContext context = event.getServletContext();
+    context.removeAttribute(SENTIMENT_ANALYZER);
+    context.removeAttribute(TRANSLATION_PIPELINE);
+    context.removeAttribute(API_EXECUTOR);
+
+    executor.shutdown();
+    try {
+      executor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      if (languageService != null) {
+        languageService.shutdown();
+        languageService.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      // Calls still queued never run, so cancel them to wake up whoever waits for their results.
+      for (Runnable queued : executor.shutdownNow()) {
+        if (queued instanceof Future) {
+          ((Future<?>) queued).cancel(false);
+        }
+      }
+      if (languageService != null) {
+        languageService.close();
+      }
+    }
+  }
+
+  /**
+   * Returns the translation pipeline every servlet of {@code context} shares.
+   */
+  public static TranslationPipeline getTranslationPipeline(ServletContext context) {
+    return (TranslationPipeline) context.getAttribute(TRANSLATION_PIPELINE);
+  }
+
+  /**
+   * Returns the sentiment analyzer every servlet of {@code context} shares.
+   */
+  public static SentimentAnalyzer getSentimentAnalyzer(ServletContext context) {
+    return (SentimentAnalyzer) context.getAttribute(SENTIMENT_ANALYZER);
+  }
+
+  /**
+   * Returns the bounded pool of threads that API calls run on.
+   */
+  public static ExecutorService getApiExecutor(ServletContext context) {
+    return (ExecutorService) context.getAttribute(API_EXECUTOR);
+  }
+
+  /**
+   * Runs a call on the submitting thread when the queue is full, which slows down whoever submits
+   * too much. Unlike {@link ThreadPoolExecutor.CallerRunsPolicy}, which silently drops the call
+   * once the pool is shut down and leaves its future unfinished, this fails the submission.
+   */
+  private static final class CallerRunsUnlessShutDown implements RejectedExecutionHandler {
+    @Override
+    public void rejectedExecution(Runnable call, ThreadPoolExecutor executor) {
+      if (executor.isShutdown()) {
+        throw new RejectedExecutionException("The app is shutting down");
+      }
+      call.run();
+    }
+  }
+}
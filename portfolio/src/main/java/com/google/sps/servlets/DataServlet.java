@@ -19,16 +19,16 @@ import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
 import com.google.appengine.api.datastore.PreparedQuery;
 import com.google.appengine.api.datastore.Query;
-import com.google.cloud.language.v1.Document;
-import com.google.cloud.language.v1.LanguageServiceClient;
-import com.google.cloud.language.v1.Sentiment;
-import com.google.cloud.translate.Translate;
-import com.google.cloud.translate.TranslateOptions;
-import com.google.cloud.translate.Translation;
+import com.google.appengine.api.datastore.Text;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.api.taskqueue.TaskOptions;
 import com.google.gson.Gson;
+import com.google.sps.TranslationPipeline;
 import com.google.sps.servlets.Constants;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -38,6 +38,16 @@ import javax.servlet.http.HttpServletResponse;
 @WebServlet("/data")
 public class DataServlet extends HttpServlet {
   public static final String MESSAGE_PREFIX = "says ";
+  // Comments hold their precomputed translations in properties named this plus the language.
+  public static final String TRANSLATION_PROPERTY_PREFIX = "translation_";
+
+  private TranslationPipeline translationPipeline;
+
+  @Override
+  public void init() {
+    translationPipeline = CloudClientsListener.getTranslationPipeline(getServletContext());
+  }
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
     response.setCharacterEncoding(Constants.ENCODING);
@@ -46,19 +56,32 @@ public class DataServlet extends HttpServlet {
     PreparedQuery results = datastore.prepare(query);
     String language = getRequestParameterOrDefault(request, "lang", "");
 
-    ArrayList<Comment> comments = new ArrayList<>();
+    // Popular languages were translated when the comment was posted. Collect the rest first so
+    // the whole page is translated in a few batched calls.
+    List<Entity> entities = new ArrayList<>();
+    List<String> messages = new ArrayList<>();
     for (Entity entity : results.asIterable()) {
+      entities.add(entity);
+      if (!entity.hasProperty(TRANSLATION_PROPERTY_PREFIX + language)) {
+        messages.add(displayMessage(entity));
+      }
+    }
+    Map<String, String> translations = translationPipeline.translateAll(messages, language);
+
+    ArrayList<Comment> comments = new ArrayList<>();
+    for (Entity entity : entities) {
       long id = entity.getKey().getId();
-      String message = (String) entity.getProperty("message");
-      message = MESSAGE_PREFIX + message;
-      message = message.trim();
-      Translate translate = TranslateOptions.getDefaultInstance().getService();
-      Translation translation =
-          translate.translate(message, Translate.TranslateOption.targetLanguage(language));
-      String translatedText = translation.getTranslatedText();
+      Text precomputed = (Text) entity.getProperty(TRANSLATION_PROPERTY_PREFIX + language);
+      String translatedText = precomputed != null
+          ? precomputed.getValue()
+          : translations.get(displayMessage(entity));
 
       String name = (String) entity.getProperty("name");
       String sentiment = (String) entity.getProperty("sentiment");
+      if (ScoreSentimentServlet.PENDING.equals(sentiment)) {
+        // Left out of the JSON, so the page can say the score is still coming.
+        sentiment = null;
+      }
       Comment comment = new Comment(id, name, translatedText, sentiment);
       comments.add(comment);
     }
@@ -86,14 +109,6 @@ public class DataServlet extends HttpServlet {
     String text = getRequestParameterOrDefault(request, "text-input", "");
     String name = getRequestParameterOrDefault(request, "name", "");
 
-    // Calculate sentiment score
-    Document doc = Document.newBuilder().setContent(text).setType(Document.Type.PLAIN_TEXT).build();
-    LanguageServiceClient languageService = LanguageServiceClient.create();
-    Sentiment sentiment = languageService.analyzeSentiment(doc).getDocumentSentiment();
-    float scoref = sentiment.getScore();
-    String score = Float.toString(scoref);
-    languageService.close();
-
     // Respond with the result.
     response.setContentType("text/html;");
     response.getWriter().println(text);
@@ -101,14 +116,27 @@ public class DataServlet extends HttpServlet {
     Entity commentEntity = new Entity("comment");
     commentEntity.setProperty("message", text);
     commentEntity.setProperty("name", name);
-    commentEntity.setProperty("sentiment", score);
+    // The sentiment is scored in the background, so posting does not wait for it.
+    commentEntity.setProperty("sentiment", ScoreSentimentServlet.PENDING);
 
     DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
     datastore.put(commentEntity);
 
+    // Translate the comment into the popular languages and score it after the response is sent.
+    QueueFactory.getDefaultQueue().add(TaskOptions.Builder.withUrl(TranslateCommentServlet.URL)
+        .param("id", Long.toString(commentEntity.getKey().getId())));
+    ScoreSentimentServlet.scheduleSweep();
+
     response.sendRedirect("/index.html");
   }
 
+  /** Returns the text shown for the comment stored in {@code entity}, before translation. */
+  static String displayMessage(Entity entity) {
+    String message = (String) entity.getProperty("message");
+    message = MESSAGE_PREFIX + message;
+    return message.trim();
+  }
+
   private String convertToJson(ArrayList<Comment> cmts) {
     Gson gson = new Gson();
     String json = gson.toJson(cmts);
@@ -0,0 +1,179 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.appengine.api.taskqueue.QueueFactory;
+import com.google.appengine.api.taskqueue.TaskAlreadyExistsException;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import com.google.sps.SentimentAnalyzer;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Task queue handler that scores the comments still marked {@value #PENDING}. Each run takes a
+ * batch of pending comments, scores them in parallel chunks, and stores the scores. If any comments
+ * are still pending afterwards, because the batch was full or because they were posted while the
+ * run was already under way, it queues another run for them.
+ *
+ * <p>Runs are queued with {@link #scheduleSweep}, which names each run after a short time window
+ * and delays it to the end of that window. A burst of posts therefore queues a single run that
+ * scores all of them, instead of one run per post over the same pending comments.
+ */
+@WebServlet(ScoreSentimentServlet.URL)
+public class ScoreSentimentServlet extends HttpServlet {
+  public static final String URL = "/tasks/score-sentiment";
+  // The sentiment of a comment that has not been scored yet.
+  public static final String PENDING = "pending";
+
+  private static final int BATCH_SIZE = 100;
+  // How long comments posted close together wait so that one run scores them all.
+  private static final long SWEEP_WINDOW_MILLIS = 5000;
+  private static final int CHUNK_SIZE = 10;
+
+  private SentimentAnalyzer analyzer;
+  private ExecutorService executor;
+
+  @Override
+  public void init() {
+    analyzer = CloudClientsListener.getSentimentAnalyzer(getServletContext());
+    executor = CloudClientsListener.getApiExecutor(getServletContext());
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // App Engine strips this header from outside requests, so only the task queue gets through.
+    if (request.getHeader("X-AppEngine-QueueName") == null) {
+      response.sendError(HttpServletResponse.SC_FORBIDDEN);
+      return;
+    }
+
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    if (scorePending(datastore, analyzer, executor)) {
+      scheduleSweep();
+    }
+  }
+
+  /**
+   * Scores a batch of pending comments and returns whether any are still pending. A post made
+   * while a run is late joins that run's window, so its own {@link #scheduleSweep} call queues
+   * nothing; looking again here is what picks its comment up.
+   */
+  static boolean scorePending(DatastoreService datastore, SentimentAnalyzer analyzer,
+      ExecutorService executor) throws IOException {
+    List<Entity> pending =
+        datastore.prepare(pendingQuery()).asList(FetchOptions.Builder.withLimit(BATCH_SIZE));
+
+    List<String> texts = new ArrayList<>(pending.size());
+    for (Entity comment : pending) {
+      texts.add((String) comment.getProperty("message"));
+    }
+    List<Float> scores = analyzeInChunks(analyzer, executor, texts);
+
+    for (int i = 0; i < pending.size(); i++) {
+      storeScore(datastore, pending.get(i), scores.get(i));
+    }
+
+    return !datastore.prepare(pendingQuery().setKeysOnly())
+        .asList(FetchOptions.Builder.withLimit(1)).isEmpty();
+  }
+
+  private static Query pendingQuery() {
+    return new Query("comment").setFilter(
+        new Query.FilterPredicate("sentiment", Query.FilterOperator.EQUAL, PENDING));
+  }
+
+  /**
+   * Makes sure a run is queued that starts after every comment stored so far. Calls in the same
+   * window share one run.
+   */
+  static void scheduleSweep() {
+    long window = System.currentTimeMillis() / SWEEP_WINDOW_MILLIS;
+    try {
+      QueueFactory.getDefaultQueue().add(TaskOptions.Builder.withUrl(URL)
+          .taskName("score-sentiment-" + window)
+          .etaMillis((window + 1) * SWEEP_WINDOW_MILLIS));
+    } catch (TaskAlreadyExistsException e) {
+      // Another post in this window already queued the run.
+    }
+  }
+
+  /** Returns the scores of {@code texts}, analyzing chunks of them at the same time. */
+  static List<Float> analyzeInChunks(SentimentAnalyzer analyzer, ExecutorService executor,
+      List<String> texts) throws IOException {
+    List<Future<List<Float>>> futures = new ArrayList<>();
+    for (int start = 0; start < texts.size(); start += CHUNK_SIZE) {
+      List<String> chunk = texts.subList(start, Math.min(start + CHUNK_SIZE, texts.size()));
+      futures.add(executor.submit(() -> analyzer.analyze(chunk)));
+    }
+
+    List<Float> scores = new ArrayList<>(texts.size());
+    try {
+      for (Future<List<Float>> future : futures) {
+        scores.addAll(future.get());
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while scoring sentiment");
+    } catch (ExecutionException e) {
+      // Failing the task makes the queue retry it.
+      throw new IOException("Could not score sentiment", e.getCause());
+    } catch (CancellationException e) {
+      // The app is stopping and dropped the call before it ran. The queue retries the task.
+      throw new IOException("Sentiment scoring was cancelled", e);
+    }
+    return scores;
+  }
+
+  /**
+   * Stores {@code score} on {@code comment}. The comment is read again in a transaction, so a
+   * delete, a translation or a score stored meanwhile is not undone.
+   */
+  private static void storeScore(DatastoreService datastore, Entity comment, float score) {
+    Transaction transaction = datastore.beginTransaction();
+    try {
+      Entity current = datastore.get(transaction, comment.getKey());
+      if (!PENDING.equals(current.getProperty("sentiment"))) {
+        // An overlapping run scored it first.
+        return;
+      }
+      current.setProperty("sentiment", Float.toString(score));
+      datastore.put(transaction, current);
+      transaction.commit();
+    } catch (EntityNotFoundException e) {
+      // Deleted before it was scored.
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+    }
+  }
+}
@@ -0,0 +1,95 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Text;
+import com.google.appengine.api.datastore.Transaction;
+import com.google.sps.TranslationPipeline;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Task queue handler that translates a new comment into the popular languages and stores the
+ * translations on the comment, so reading the comments in those languages costs no translation.
+ * If a translation fails the task fails too, and the queue retries it.
+ */
+@WebServlet(TranslateCommentServlet.URL)
+public class TranslateCommentServlet extends HttpServlet {
+  public static final String URL = "/tasks/translate-comment";
+  // A comma-separated list of languages to translate into, e.g. "en,es,zh".
+  public static final String LANGUAGES_PROPERTY = "com.google.sps.precomputedLanguages";
+  public static final String DEFAULT_LANGUAGES = "en,es,zh";
+
+  private TranslationPipeline translationPipeline;
+  private List<String> languages;
+
+  @Override
+  public void init() {
+    translationPipeline = CloudClientsListener.getTranslationPipeline(getServletContext());
+    languages =
+        Arrays.asList(System.getProperty(LANGUAGES_PROPERTY, DEFAULT_LANGUAGES).split(","));
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    // App Engine strips this header from outside requests, so only the task queue gets through.
+    if (request.getHeader("X-AppEngine-QueueName") == null) {
+      response.sendError(HttpServletResponse.SC_FORBIDDEN);
+      return;
+    }
+
+    Key key = KeyFactory.createKey("comment", Long.parseLong(request.getParameter("id")));
+    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+    Entity comment;
+    try {
+      comment = datastore.get(key);
+    } catch (EntityNotFoundException e) {
+      // Deleted before it could be translated.
+      return;
+    }
+    Map<String, String> translations =
+        translationPipeline.translateIntoEach(DataServlet.displayMessage(comment), languages);
+
+    // Re-read the comment so a delete that happened while translating is not undone.
+    Transaction transaction = datastore.beginTransaction();
+    try {
+      comment = datastore.get(transaction, key);
+      for (Map.Entry<String, String> translation : translations.entrySet()) {
+        comment.setProperty(DataServlet.TRANSLATION_PROPERTY_PREFIX + translation.getKey(),
+            new Text(translation.getValue()));
+      }
+      datastore.put(transaction, comment);
+      transaction.commit();
+    } catch (EntityNotFoundException e) {
+      // Deleted while translating.
+    } finally {
+      if (transaction.isActive()) {
+        transaction.rollback();
+      }
+    }
+  }
+}
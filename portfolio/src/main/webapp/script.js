@@ -67,9 +67,12 @@ function createCommentElement(comment) {
   const commentElement = document.createElement('li');
   commentElement.className = 'comment';
 
+  // Comments are scored in the background, so new ones have no sentiment yet.
+  const sentiment = comment.sentiment === undefined ?
+      'Sentiment Score: not scored yet' :
+      `Sentiment Score: ${comment.sentiment}`;
   const messageElement = document.createElement('span');
-  messageElement.innerText = `${comment.name} ${
-      comment.message} (Sentiment Score: ${comment.sentiment})`;
+  messageElement.innerText = `${comment.name} ${comment.message} (${sentiment})`;
 
   const deleteButtonElement = document.createElement('button');
   deleteButtonElement.innerText = 'Delete';
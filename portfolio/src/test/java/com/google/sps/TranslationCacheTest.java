@@ -0,0 +1,184 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.appengine.api.datastore.AsyncDatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.tools.development.testing.LocalDatastoreServiceTestConfig;
+import com.google.appengine.tools.development.testing.LocalServiceTestHelper;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class TranslationCacheTest {
+  private static final String FRENCH = "fr";
+  private static final String GERMAN = "de";
+
+  private final LocalServiceTestHelper helper =
+      new LocalServiceTestHelper(new LocalDatastoreServiceTestConfig());
+  private final StubTranslator translator = new StubTranslator();
+
+  // How many times the cache went to Datastore for translations it did not have in memory.
+  private final AtomicInteger datastoreGets = new AtomicInteger();
+  private AsyncDatastoreService datastore;
+
+  @Before
+  public void setUp() {
+    helper.setUp();
+    AsyncDatastoreService real = DatastoreServiceFactory.getAsyncDatastoreService();
+    datastore = (AsyncDatastoreService) Proxy.newProxyInstance(
+        AsyncDatastoreService.class.getClassLoader(),
+        new Class<?>[] {AsyncDatastoreService.class},
+        (proxy, method, args) -> {
+          if (method.getName().equals("get")) {
+            datastoreGets.incrementAndGet();
+          }
+          try {
+            return method.invoke(real, args);
+          } catch (InvocationTargetException e) {
+            throw e.getCause();
+          }
+        });
+  }
+
+  @After
+  public void tearDown() {
+    helper.tearDown();
+  }
+
+  @Test
+  public void missFindsNothing() {
+    TranslationCache cache = new TranslationCache(datastore, 10);
+
+    Map<String, String> actual = cache.getAll(Arrays.asList("hello"), FRENCH);
+
+    Assert.assertTrue(actual.isEmpty());
+    Assert.assertEquals(1, datastoreGets.get());
+  }
+
+  @Test
+  public void hitInMemorySkipsDatastore() {
+    TranslationCache cache = new TranslationCache(datastore, 10);
+    cache.putAll(translate(FRENCH, "hello", "bye"), FRENCH);
+
+    Map<String, String> actual = cache.getAll(Arrays.asList("hello", "bye"), FRENCH);
+
+    Assert.assertEquals(translate(FRENCH, "hello", "bye"), actual);
+    Assert.assertEquals(0, datastoreGets.get());
+  }
+
+  @Test
+  public void languagesAreKeptApart() {
+    TranslationCache cache = new TranslationCache(datastore, 10);
+    cache.putAll(translate(FRENCH, "hello"), FRENCH);
+
+    Map<String, String> actual = cache.getAll(Arrays.asList("hello"), GERMAN);
+
+    Assert.assertTrue(actual.isEmpty());
+  }
+
+  @Test
+  public void hitInDatastoreIsKeptInMemory() {
+    new TranslationCache(datastore, 10).putAll(translate(FRENCH, "hello"), FRENCH);
+    // A new instance starts with nothing in memory.
+    TranslationCache cache = new TranslationCache(datastore, 10);
+
+    Map<String, String> first = cache.getAll(Arrays.asList("hello"), FRENCH);
+    Map<String, String> second = cache.getAll(Arrays.asList("hello"), FRENCH);
+
+    Assert.assertEquals(translate(FRENCH, "hello"), first);
+    Assert.assertEquals(translate(FRENCH, "hello"), second);
+    Assert.assertEquals(1, datastoreGets.get());
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvictedFromMemory() {
+    TranslationCache cache = new TranslationCache(datastore, 2);
+    cache.putAll(translate(FRENCH, "a"), FRENCH);
+    cache.putAll(translate(FRENCH, "b"), FRENCH);
+    // Reading "a" makes "b" the least recently used.
+    cache.getAll(Arrays.asList("a"), FRENCH);
+    cache.putAll(translate(FRENCH, "c"), FRENCH);
+
+    cache.getAll(Arrays.asList("a", "c"), FRENCH);
+    Assert.assertEquals(0, datastoreGets.get());
+
+    // "b" is gone from memory but Datastore still has it.
+    Map<String, String> actual = cache.getAll(Arrays.asList("b"), FRENCH);
+    Assert.assertEquals(translate(FRENCH, "b"), actual);
+    Assert.assertEquals(1, datastoreGets.get());
+  }
+
+  @Test
+  public void partitionSplitsIntoBatchesOfFiveHundred() {
+    List<Integer> items = new ArrayList<>();
+    for (int i = 0; i < 1201; i++) {
+      items.add(i);
+    }
+
+    List<List<Integer>> batches = TranslationCache.partition(items);
+
+    Assert.assertEquals(3, batches.size());
+    Assert.assertEquals(500, batches.get(0).size());
+    Assert.assertEquals(500, batches.get(1).size());
+    Assert.assertEquals(201, batches.get(2).size());
+    Assert.assertEquals(Integer.valueOf(500), batches.get(1).get(0));
+    Assert.assertEquals(Integer.valueOf(1200), batches.get(2).get(200));
+  }
+
+  @Test
+  public void manyMissesAreReadInBatches() {
+    String[] messages = new String[501];
+    for (int i = 0; i < messages.length; i++) {
+      messages[i] = "message " + i;
+    }
+    new TranslationCache(datastore, 1000).putAll(translate(FRENCH, messages), FRENCH);
+    TranslationCache cache = new TranslationCache(datastore, 1000);
+
+    Map<String, String> actual = cache.getAll(Arrays.asList(messages), FRENCH);
+
+    Assert.assertEquals(translate(FRENCH, messages), actual);
+    Assert.assertEquals(2, datastoreGets.get());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void capacityMustBePositive() {
+    new TranslationCache(datastore, 0);
+  }
+
+  /** Returns the translations {@link StubTranslator} makes of {@code messages}. */
+  private Map<String, String> translate(String language, String... messages) {
+    List<String> translated = translator.translate(Arrays.asList(messages), language);
+    Map<String, String> translations = new HashMap<>();
+    for (int i = 0; i < messages.length; i++) {
+      translations.put(messages[i], translated.get(i));
+    }
+    return Collections.unmodifiableMap(translations);
+  }
+}
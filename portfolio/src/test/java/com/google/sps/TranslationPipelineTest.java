@@ -0,0 +1,145 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class TranslationPipelineTest {
+  private static final String FRENCH = "fr";
+  private static final String GERMAN = "de";
+
+  private ExecutorService executor;
+  private RecordingTranslator translator;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+    translator = new RecordingTranslator();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void duplicateMessagesAreTranslatedOnce() throws IOException {
+    TranslationPipeline pipeline = new TranslationPipeline(translator, null, executor, 10);
+
+    Map<String, String> actual =
+        pipeline.translateAll(Arrays.asList("hello", "bye", "hello", "hello"), FRENCH);
+
+    Map<String, String> expected = new HashMap<>();
+    expected.put("hello", "[fr] hello");
+    expected.put("bye", "[fr] bye");
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(Collections.singletonList(Arrays.asList("hello", "bye")), translator.calls);
+  }
+
+  @Test
+  public void messagesAreSplitIntoBatches() throws IOException {
+    TranslationPipeline pipeline = new TranslationPipeline(translator, null, executor, 2);
+    List<String> messages = Arrays.asList("a", "b", "c", "d", "e");
+
+    Map<String, String> actual = pipeline.translateAll(messages, FRENCH);
+
+    Assert.assertEquals(5, actual.size());
+    for (String message : messages) {
+      Assert.assertEquals("[fr] " + message, actual.get(message));
+    }
+    List<List<String>> batches = translator.sortedCalls();
+    Assert.assertEquals(
+        Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("c", "d"), Arrays.asList("e")),
+        batches);
+  }
+
+  @Test
+  public void noMessagesMeansNoCalls() throws IOException {
+    TranslationPipeline pipeline = new TranslationPipeline(translator, null, executor, 2);
+
+    Map<String, String> actual = pipeline.translateAll(Collections.emptyList(), FRENCH);
+
+    Assert.assertTrue(actual.isEmpty());
+    Assert.assertTrue(translator.calls.isEmpty());
+  }
+
+  @Test
+  public void eachLanguageIsTranslatedSeparately() throws IOException {
+    TranslationPipeline pipeline = new TranslationPipeline(translator, null, executor, 2);
+
+    Map<String, String> actual = pipeline.translateIntoEach("hello", Arrays.asList(FRENCH, GERMAN));
+
+    Map<String, String> expected = new HashMap<>();
+    expected.put(FRENCH, "[fr] hello");
+    expected.put(GERMAN, "[de] hello");
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(2, translator.calls.size());
+  }
+
+  @Test
+  public void failedBatchSurfacesAsIOException() {
+    Translator failing = (texts, language) -> {
+      throw new IllegalStateException("quota exceeded");
+    };
+    TranslationPipeline pipeline = new TranslationPipeline(failing, null, executor, 2);
+
+    try {
+      pipeline.translateAll(Arrays.asList("a", "b", "c"), FRENCH);
+      Assert.fail("Expected an IOException");
+    } catch (IOException e) {
+      Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void batchSizeMustBePositive() {
+    new TranslationPipeline(translator, null, executor, 0);
+  }
+
+  /** Translates with {@link StubTranslator} and remembers the texts of each call. */
+  private static final class RecordingTranslator implements Translator {
+    private final StubTranslator stub = new StubTranslator();
+    final List<List<String>> calls = Collections.synchronizedList(new ArrayList<>());
+
+    @Override
+    public List<String> translate(List<String> texts, String targetLanguage) {
+      calls.add(new ArrayList<>(texts));
+      return stub.translate(texts, targetLanguage);
+    }
+
+    /** Returns the calls ordered by their first text, since batches run at the same time. */
+    List<List<String>> sortedCalls() {
+      List<List<String>> sorted = new ArrayList<>(calls);
+      sorted.sort((a, b) -> a.get(0).compareTo(b.get(0)));
+      return sorted;
+    }
+  }
+}
@@ -0,0 +1,187 @@
+// Copyright 2020 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.tools.development.testing.LocalDatastoreServiceTestConfig;
+import com.google.appengine.tools.development.testing.LocalServiceTestHelper;
+import com.google.apphosting.api.ApiProxy;
+import com.google.sps.SentimentAnalyzer;
+import com.google.sps.StubSentimentAnalyzer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ScoreSentimentServletTest {
+  // Queries see every write at once, so each run finds the comments stored just before it.
+  private final LocalServiceTestHelper helper = new LocalServiceTestHelper(
+      new LocalDatastoreServiceTestConfig().setDefaultHighRepJobPolicyUnappliedJobPercentage(0));
+
+  private ExecutorService executor;
+  private DatastoreService datastore;
+
+  @Before
+  public void setUp() {
+    helper.setUp();
+    executor = Executors.newFixedThreadPool(4);
+    datastore = DatastoreServiceFactory.getDatastoreService();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+    helper.tearDown();
+  }
+
+  @Test
+  public void chunksAreAnalyzedSeparately() throws IOException {
+    List<List<String>> chunks = Collections.synchronizedList(new ArrayList<>());
+    StubSentimentAnalyzer stub = new StubSentimentAnalyzer();
+    SentimentAnalyzer recording = texts -> {
+      chunks.add(new ArrayList<>(texts));
+      return stub.analyze(texts);
+    };
+
+    List<Float> actual =
+        ScoreSentimentServlet.analyzeInChunks(recording, executor, numberedTexts(25));
+
+    Assert.assertEquals(Collections.nCopies(25, 0f), actual);
+    List<Integer> sizes = new ArrayList<>();
+    for (List<String> chunk : chunks) {
+      sizes.add(chunk.size());
+    }
+    Collections.sort(sizes);
+    Assert.assertEquals(Arrays.asList(5, 10, 10), sizes);
+  }
+
+  @Test
+  public void scoresKeepTheOrderOfTheTexts() throws IOException {
+    // Each text scores as its own number, and earlier chunks finish last.
+    SentimentAnalyzer slowFirst = texts -> {
+      int first = Integer.parseInt(texts.get(0));
+      try {
+        Thread.sleep(100 - first * 3);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      List<Float> scores = new ArrayList<>();
+      for (String text : texts) {
+        scores.add(Float.parseFloat(text));
+      }
+      return scores;
+    };
+
+    List<Float> actual =
+        ScoreSentimentServlet.analyzeInChunks(slowFirst, executor, numberedTexts(25));
+
+    List<Float> expected = new ArrayList<>();
+    for (int i = 0; i < 25; i++) {
+      expected.add((float) i);
+    }
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void failedChunkSurfacesAsIOException() {
+    SentimentAnalyzer failing = texts -> {
+      throw new IllegalStateException("quota exceeded");
+    };
+
+    try {
+      ScoreSentimentServlet.analyzeInChunks(failing, executor, numberedTexts(25));
+      Assert.fail("Expected an IOException");
+    } catch (IOException e) {
+      Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+    }
+  }
+
+  @Test
+  public void pendingCommentsAreScored() throws IOException, EntityNotFoundException {
+    List<Key> keys = storePendingComments(3);
+
+    boolean more =
+        ScoreSentimentServlet.scorePending(datastore, new StubSentimentAnalyzer(), executor);
+
+    Assert.assertFalse(more);
+    for (Key key : keys) {
+      Assert.assertEquals("0.0", datastore.get(key).getProperty("sentiment"));
+    }
+  }
+
+  @Test
+  public void commentsLeftPendingAskForAnotherRun() throws IOException {
+    storePendingComments(101);
+
+    boolean more =
+        ScoreSentimentServlet.scorePending(datastore, new StubSentimentAnalyzer(), executor);
+    Assert.assertTrue(more);
+
+    more = ScoreSentimentServlet.scorePending(datastore, new StubSentimentAnalyzer(), executor);
+    Assert.assertFalse(more);
+  }
+
+  @Test
+  public void commentPostedDuringARunAsksForAnotherRun() throws IOException {
+    storePendingComments(3);
+    // Posts a comment while the run is scoring the first three. Analysis runs on a pool thread,
+    // which needs the test's App Engine environment to reach the local Datastore.
+    ApiProxy.Environment environment = ApiProxy.getCurrentEnvironment();
+    SentimentAnalyzer posting = texts -> {
+      ApiProxy.setEnvironmentForCurrentThread(environment);
+      storePendingComments(1);
+      return new StubSentimentAnalyzer().analyze(texts);
+    };
+
+    boolean more = ScoreSentimentServlet.scorePending(datastore, posting, executor);
+
+    Assert.assertTrue(more);
+  }
+
+  private List<Key> storePendingComments(int count) {
+    List<Entity> comments = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      Entity comment = new Entity("comment");
+      comment.setProperty("message", "comment " + i);
+      comment.setProperty("sentiment", ScoreSentimentServlet.PENDING);
+      comments.add(comment);
+    }
+    return datastore.put(comments);
+  }
+
+  /** Returns the texts "0", "1" and so on, up to {@code count} of them. */
+  private static List<String> numberedTexts(int count) {
+    List<String> texts = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      texts.add(Integer.toString(i));
+    }
+    return texts;
+  }
+}
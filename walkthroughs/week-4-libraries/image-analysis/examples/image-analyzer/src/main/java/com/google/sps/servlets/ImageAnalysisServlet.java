@@ -158,9 +158,9 @@ public class ImageAnalysisServlet extends HttpServlet {
     List<AnnotateImageRequest> requests = new ArrayList<>();
     requests.add(request);
 
-    ImageAnnotatorClient client = ImageAnnotatorClient.create();
-    BatchAnnotateImagesResponse batchResponse = client.batchAnnotateImages(requests);
-    client.close();
+    ImageAnnotatorClient client = CloudClientsListener.getImageAnnotator(getServletContext());
+    BatchAnnotateImagesResponse batchResponse =
+        CloudClientsListener.call(getServletContext(), () -> client.batchAnnotateImages(requests));
     List<AnnotateImageResponse> imageResponses = batchResponse.getResponsesList();
     AnnotateImageResponse imageResponse = imageResponses.get(0);
 
@@ -0,0 +1,108 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.cloud.language.v1.LanguageServiceClient;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Creates the Natural Language client once when the app starts and shares it with every request. At
+ * most {@value #MAX_CONCURRENT_CALLS} requests call the API at once and the rest wait for a
+ * turn. When the app stops, calls already started get time to finish before the client is closed.
+ */
+@WebListener
+public class CloudClientsListener implements ServletContextListener {
+  private static final int MAX_CONCURRENT_CALLS = 16;
+  private static final long SHUTDOWN_TIMEOUT_SECONDS = 10;
+
+  private static final String LANGUAGE_SERVICE = "com.google.sps.languageService";
+  private static final String CALL_PERMITS = "com.google.sps.callPermits";
+
+  /** A call to the API that may throw an IOException. */
+  public interface ApiCall<T> {
+    T call() throws IOException;
+  }
+
+  private LanguageServiceClient languageService;
+  private Semaphore permits;
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    try {
+      languageService = LanguageServiceClient.create();
+    } catch (IOException e) {
+      throw new IllegalStateException("Could not create the Natural Language client", e);
+    }
+    permits = new Semaphore(MAX_CONCURRENT_CALLS, true);
+    event.getServletContext().setAttribute(LANGUAGE_SERVICE, languageService);
+    event.getServletContext().setAttribute(CALL_PERMITS, permits);
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    // Calls that start from now on fail. Taking every turn means waiting for the calls in progress
+    // to finish.
+    event.getServletContext().removeAttribute(CALL_PERMITS);
+    try {
+      permits.tryAcquire(MAX_CONCURRENT_CALLS, SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+      languageService.shutdown();
+      languageService.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } finally {
+      languageService.close();
+      event.getServletContext().removeAttribute(LANGUAGE_SERVICE);
+      // Callers already waiting for a turn fail instead of waiting forever.
+      permits.release(MAX_CONCURRENT_CALLS);
+    }
+  }
+
+  /** Returns the Natural Language client shared by every request. */
+  public static LanguageServiceClient getLanguageService(ServletContext context) {
+    return (LanguageServiceClient) context.getAttribute(LANGUAGE_SERVICE);
+  }
+
+  /**
+   * Runs {@code call} once a turn to call the API is free. Fails once the app has started shutting
+   * down, including for callers that were still waiting for a turn.
+   */
+  public static <T> T call(ServletContext context, ApiCall<T> call) throws IOException {
+    Semaphore permits = (Semaphore) context.getAttribute(CALL_PERMITS);
+    if (permits == null) {
+      throw new IOException("The app is shutting down");
+    }
+    try {
+      permits.acquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while waiting to call the API");
+    }
+    try {
+      if (context.getAttribute(CALL_PERMITS) == null) {
+        throw new IOException("The app is shutting down");
+      }
+      return call.call();
+    } finally {
+      permits.release();
+    }
+  }
+}
@@ -32,10 +32,11 @@ public class SentimentAnalysisServlet extends HttpServlet {
 
     Document doc =
         Document.newBuilder().setContent(message).setType(Document.Type.PLAIN_TEXT).build();
-    LanguageServiceClient languageService = LanguageServiceClient.create();
-    Sentiment sentiment = languageService.analyzeSentiment(doc).getDocumentSentiment();
+    LanguageServiceClient languageService =
+        CloudClientsListener.getLanguageService(getServletContext());
+    Sentiment sentiment = CloudClientsListener.call(getServletContext(),
+        () -> languageService.analyzeSentiment(doc).getDocumentSentiment());
     float score = sentiment.getScore();
-    languageService.close();
 
     // Output the sentiment score as HTML.
     // A real project would probably store the score alongside the content.
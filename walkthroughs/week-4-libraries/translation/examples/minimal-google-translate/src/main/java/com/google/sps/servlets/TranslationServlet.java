@@ -15,7 +15,6 @@
 package com.google.sps.servlets;
 
 import com.google.cloud.translate.Translate;
-import com.google.cloud.translate.TranslateOptions;
 import com.google.cloud.translate.Translation;
 import java.io.IOException;
 import javax.servlet.annotation.WebServlet;
@@ -33,9 +32,10 @@ public class TranslationServlet extends HttpServlet {
     String languageCode = request.getParameter("languageCode");
 
     // Do the translation.
-    Translate translate = TranslateOptions.getDefaultInstance().getService();
-    Translation translation =
-        translate.translate(originalText, Translate.TranslateOption.targetLanguage(languageCode));
+    Translate translate = CloudClientsListener.getTranslate(getServletContext());
+    Translation translation = CloudClientsListener.call(getServletContext(),
+        () -> translate.translate(
+            originalText, Translate.TranslateOption.targetLanguage(languageCode)));
     String translatedText = translation.getTranslatedText();
 
     // Output the translation.
@@ -0,0 +1,97 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates synthetic calendars and meeting requests. The same seed always produces the same
+ * calendar, so runs of different engines or commits measure the same work.
+ */
+final class Calendars {
+  // Up to this many other people are invited to each generated event.
+  private static final int MAX_GUESTS = 2;
+
+  private Calendars() {
+    // Disallow instances.
+  }
+
+  /** Returns the name of the attendee with the given number. */
+  static String attendee(int number) {
+    return "Person " + number;
+  }
+
+  /**
+   * Returns {@code eventsPerAttendee} events for each of {@code attendees} people. Each event may
+   * also include a few other people, so calendars overlap the way real ones do.
+   */
+  static List<Event> events(
+      int attendees, int eventsPerAttendee, Fragmentation fragmentation, long seed) {
+    Random random = new Random(seed);
+    List<Event> events = new ArrayList<>(attendees * eventsPerAttendee);
+    for (int owner = 0; owner < attendees; owner++) {
+      for (int i = 0; i < eventsPerAttendee; i++) {
+        int duration = fragmentation.shortestEvent()
+            + random.nextInt(fragmentation.longestEvent() - fragmentation.shortestEvent() + 1);
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration() - duration + 1);
+
+        Set<String> invited = new HashSet<>();
+        invited.add(attendee(owner));
+        int guests = random.nextInt(MAX_GUESTS + 1);
+        for (int guest = 0; guest < guests; guest++) {
+          invited.add(attendee(random.nextInt(attendees)));
+        }
+        events.add(new Event("Event " + events.size(),
+            TimeRange.fromStartDuration(start, duration), invited));
+      }
+    }
+    return events;
+  }
+
+  /**
+   * Returns {@code count} requests, each for {@code required} required and {@code optional}
+   * optional people picked from {@code attendees} people.
+   */
+  static List<MeetingRequest> requests(
+      int count, int attendees, int required, int optional, int duration, long seed) {
+    Random random = new Random(seed);
+    List<MeetingRequest> requests = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      MeetingRequest request = new MeetingRequest(pick(random, attendees, required), duration);
+      for (String person : pick(random, attendees, optional)) {
+        request.addOptionalAttendee(person);
+      }
+      requests.add(request);
+    }
+    return requests;
+  }
+
+  private static Collection<String> pick(Random random, int attendees, int count) {
+    String[] people = new String[count];
+    for (int i = 0; i < count; i++) {
+      people[i] = attendee(random.nextInt(attendees));
+    }
+    return Arrays.asList(people);
+  }
+}
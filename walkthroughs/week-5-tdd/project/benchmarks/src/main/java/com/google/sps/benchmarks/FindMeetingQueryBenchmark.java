@@ -0,0 +1,133 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AttendeeBusyIndex;
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how many meeting queries each engine answers per second. Run with {@code -prof gc} to
+ * also see the bytes allocated per query. The legacy {@link FindMeetingQuery.Mode#SCAN} baseline is
+ * measured separately by {@link ScanBaselineBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FindMeetingQueryBenchmark {
+  // Cycling through several requests keeps the JIT from specializing on a single one.
+  private static final int REQUESTS = 64;
+  private static final int REQUIRED_ATTENDEES = 3;
+  private static final int DURATION = 30;
+  private static final long SEED = 2019;
+
+  @Param({"SWEEP", "BITMAP", "PARALLEL"})
+  public FindMeetingQuery.Mode mode;
+
+  @Param({"10", "100", "1000"})
+  public int attendees;
+
+  @Param({"4", "16"})
+  public int eventsPerAttendee;
+
+  @Param({"0", "8"})
+  public int optionalAttendees;
+
+  @Param({"LOW", "HIGH"})
+  public Fragmentation fragmentation;
+
+  private List<Event> events;
+  // Each event moved an hour later, wrapping within the day, for updateThenQuery to swap in.
+  private List<Event> movedEvents;
+  private AttendeeBusyIndex index;
+  private List<MeetingRequest> requests;
+  private FindMeetingQuery findMeetingQuery;
+  private int next;
+  private int edits;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    events = Calendars.events(attendees, eventsPerAttendee, fragmentation, SEED);
+    index = AttendeeBusyIndex.of(events);
+    movedEvents = new ArrayList<>(events.size());
+    for (Event event : events) {
+      TimeRange when = event.getWhen();
+      movedEvents.add(new Event(event.getTitle(),
+          TimeRange.fromStartDuration(
+              (when.start() + 60) % (TimeRange.WHOLE_DAY.duration() - when.duration() + 1),
+              when.duration()),
+          event.getAttendees()));
+    }
+    requests = Calendars.requests(
+        REQUESTS, attendees, REQUIRED_ATTENDEES, optionalAttendees, DURATION, SEED);
+    findMeetingQuery = new FindMeetingQuery(mode);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> query() {
+    return findMeetingQuery.query(events, nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryIndexed() {
+    return findMeetingQuery.query(index, nextRequest());
+  }
+
+  /**
+   * Moves one event an hour later and answers a request from the kept-up-to-date index, the way a
+   * calendar that is edited and re-queried would. The next call moves the event back, so the
+   * calendar stays the same size and shape from one iteration to the next.
+   */
+  @Benchmark
+  public Collection<TimeRange> updateThenQuery() {
+    int i = (edits / 2) % events.size();
+    if (edits % 2 == 0) {
+      index.remove(events.get(i));
+      index.add(movedEvents.get(i));
+    } else {
+      index.remove(movedEvents.get(i));
+      index.add(events.get(i));
+    }
+    edits = (edits + 1) % (2 * events.size());
+    return findMeetingQuery.query(index, nextRequest());
+  }
+
+  private MeetingRequest nextRequest() {
+    MeetingRequest request = requests.get(next);
+    next = (next + 1) % REQUESTS;
+    return request;
+  }
+}
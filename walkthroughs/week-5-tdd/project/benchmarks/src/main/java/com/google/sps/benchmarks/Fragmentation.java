@@ -0,0 +1,43 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+/**
+ * How broken up the day is for each attendee in a generated calendar.
+ */
+public enum Fragmentation {
+  // A few long events, leaving long free windows.
+  LOW(60, 180),
+  // Many short events, leaving lots of small free windows.
+  HIGH(5, 30);
+
+  private final int shortestEvent;
+  private final int longestEvent;
+
+  Fragmentation(int shortestEvent, int longestEvent) {
+    this.shortestEvent = shortestEvent;
+    this.longestEvent = longestEvent;
+  }
+
+  /** Returns the shortest generated event in minutes. */
+  int shortestEvent() {
+    return shortestEvent;
+  }
+
+  /** Returns the longest generated event in minutes. */
+  int longestEvent() {
+    return longestEvent;
+  }
+}
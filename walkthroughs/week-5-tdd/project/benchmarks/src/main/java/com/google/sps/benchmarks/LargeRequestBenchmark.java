@@ -0,0 +1,91 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.AttendeeBusyIndex;
+import com.google.sps.MeetingRequest;
+import com.google.sps.ParallelScheduler;
+import com.google.sps.SweepLineScheduler;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the sequential sweep with {@link ParallelScheduler} on requests with hundreds of
+ * required attendees. Pin {@code threshold} to the request size to see the parallel scheduler's
+ * cost on the calling thread alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LargeRequestBenchmark {
+  private static final int REQUESTS = 16;
+  private static final int ATTENDEES = 5000;
+  private static final int EVENTS_PER_ATTENDEE = 8;
+  private static final int DURATION = 15;
+  private static final long SEED = 2019;
+
+  @Param({"50", "200", "800"})
+  public int requiredAttendees;
+
+  @Param({"8", "32", "128"})
+  public int threshold;
+
+  private AttendeeBusyIndex index;
+  private List<MeetingRequest> requests;
+  private ParallelScheduler parallel;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    index = AttendeeBusyIndex.of(
+        Calendars.events(ATTENDEES, EVENTS_PER_ATTENDEE, Fragmentation.LOW, SEED));
+    requests =
+        Calendars.requests(REQUESTS, ATTENDEES, requiredAttendees, 0, DURATION, SEED);
+    parallel = new ParallelScheduler(ForkJoinPool.commonPool(), threshold);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> sweep() {
+    return new SweepLineScheduler().query(index, nextRequest());
+  }
+
+  @Benchmark
+  public Collection<TimeRange> parallel() {
+    return parallel.query(index, nextRequest());
+  }
+
+  private MeetingRequest nextRequest() {
+    MeetingRequest request = requests.get(next);
+    next = (next + 1) % REQUESTS;
+    return request;
+  }
+}
@@ -0,0 +1,86 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the legacy {@link FindMeetingQuery.Mode#SCAN} engine on the same calendars as
+ * {@link FindMeetingQueryBenchmark}, so its numbers line up with {@code query} there.
+ *
+ * <p>Requests never name optional attendees here. The scan is kept exactly as it was, and with
+ * several optional attendees it can throw a {@code ConcurrentModificationException} while counting
+ * them, which would abort the trial.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ScanBaselineBenchmark {
+  private static final int REQUESTS = 64;
+  private static final int REQUIRED_ATTENDEES = 3;
+  private static final int OPTIONAL_ATTENDEES = 0;
+  private static final int DURATION = 30;
+  private static final long SEED = 2019;
+
+  @Param({"10", "100", "1000"})
+  public int attendees;
+
+  @Param({"4", "16"})
+  public int eventsPerAttendee;
+
+  @Param({"LOW", "HIGH"})
+  public Fragmentation fragmentation;
+
+  private List<Event> events;
+  private List<MeetingRequest> requests;
+  private FindMeetingQuery findMeetingQuery;
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    events = Calendars.events(attendees, eventsPerAttendee, fragmentation, SEED);
+    requests = Calendars.requests(
+        REQUESTS, attendees, REQUIRED_ATTENDEES, OPTIONAL_ATTENDEES, DURATION, SEED);
+    findMeetingQuery = new FindMeetingQuery(FindMeetingQuery.Mode.SCAN);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> query() {
+    MeetingRequest request = requests.get(next);
+    next = (next + 1) % REQUESTS;
+    return findMeetingQuery.query(events, request);
+  }
+}
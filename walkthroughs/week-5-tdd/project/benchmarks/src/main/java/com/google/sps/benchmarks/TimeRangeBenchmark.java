@@ -0,0 +1,93 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.benchmarks;
+
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the {@link TimeRange} operations that every engine leans on.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimeRangeBenchmark {
+  private static final long SEED = 2019;
+
+  @Param({"100", "10000"})
+  public int ranges;
+
+  @Param({"LOW", "HIGH"})
+  public Fragmentation fragmentation;
+
+  private List<TimeRange> shuffled;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    shuffled = new ArrayList<>(ranges);
+    for (Event event : Calendars.events(ranges, 1, fragmentation, SEED)) {
+      shuffled.add(event.getWhen());
+    }
+  }
+
+  @Benchmark
+  public List<TimeRange> sortByStart() {
+    List<TimeRange> sorted = new ArrayList<>(shuffled);
+    Collections.sort(sorted, TimeRange.ORDER_BY_START);
+    return sorted;
+  }
+
+  @Benchmark
+  public int countOverlaps() {
+    TimeRange first = shuffled.get(0);
+    int overlaps = 0;
+    for (TimeRange range : shuffled) {
+      if (first.overlaps(range)) {
+        overlaps++;
+      }
+    }
+    return overlaps;
+  }
+
+  @Benchmark
+  public int countContained() {
+    int contained = 0;
+    for (TimeRange range : shuffled) {
+      if (TimeRange.WHOLE_DAY.contains(range)) {
+        contained++;
+      }
+    }
+    return contained;
+  }
+}
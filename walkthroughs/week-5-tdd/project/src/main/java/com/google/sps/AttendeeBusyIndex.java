@@ -0,0 +1,345 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Maps each attendee to the times they are busy, sorted by start and merged so no two ranges
+ * overlap or touch. A query only needs to look up the attendees it names instead of scanning every
+ * known event.
+ *
+ * <p>The index is meant to be kept up to date as calendars change rather than rebuilt. Each
+ * attendee's calendar is stored as a sorted map from minute to how many ranges cover it from there
+ * on, with a key only where that count changes. Adding or removing an event updates the keys inside
+ * its range and then splices the merged busy times: the ranges it touches are replaced by the
+ * coverage recomputed over just that stretch. The work is O(log n) plus the number of boundaries
+ * and merged ranges the event touches, and one copy of the merged list's references so lookups can
+ * keep reading the old one.
+ *
+ * <p>Recurring events are kept as rules next to the boundaries and only expanded by windowed
+ * lookups, into the occurrences that fall in the window. A standing daily meeting costs one entry,
+ * not one per day.
+ *
+ * <p>Calendars are stored in an array indexed by {@linkplain AttendeeDictionary attendee id}, so
+ * once a request's attendees are resolved to ids, looking up their busy times involves no hashing.
+ *
+ * <p>Lookups may run concurrently with updates. Each attendee's busy times are replaced as a whole
+ * on every change, so a lookup always sees a consistent list.
+ */
+public final class AttendeeBusyIndex implements BusyTimes {
+  private final AttendeeDictionary dictionary;
+
+  // Id -> calendar, or null for attendees without events. Only grown or filled in while holding
+  // the lock, and republished after every write so lookups see new calendars.
+  private volatile Calendar[] calendars = new Calendar[16];
+
+  // How many times each event has been added, so removing an event that was never added does
+  // nothing.
+  private final Map<Event, Integer> events = new HashMap<>();
+
+  // Bumped on every change so that each attendee version is unique across the index.
+  private long changes;
+
+  /**
+   * Creates an empty index with its own attendee dictionary.
+   */
+  public AttendeeBusyIndex() {
+    this(new AttendeeDictionary());
+  }
+
+  /**
+   * Creates an empty index that numbers attendees with {@code dictionary}, which may be shared
+   * with other parts of the app.
+   */
+  public AttendeeBusyIndex(AttendeeDictionary dictionary) {
+    if (dictionary == null) {
+      throw new IllegalArgumentException("dictionary cannot be null");
+    }
+
+    this.dictionary = dictionary;
+  }
+
+  /**
+   * Creates an index of {@code events}.
+   */
+  public static AttendeeBusyIndex of(Collection<Event> events) {
+    AttendeeBusyIndex index = new AttendeeBusyIndex();
+    for (Event event : events) {
+      index.add(event);
+    }
+    return index;
+  }
+
+  @Override
+  public AttendeeDictionary getAttendeeDictionary() {
+    return dictionary;
+  }
+
+  @Override
+  public List<TimeRange> getBusyTimes(int id) {
+    Calendar calendar = calendar(id);
+    if (calendar == null) {
+      return Collections.<TimeRange>emptyList();
+    }
+    return calendar.busyTimes;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * <p>The ranges are found with a binary search, so the cost depends on how many ranges fall in
+   * {@code window}, not on the size of the attendee's calendar.
+   */
+  @Override
+  public List<TimeRange> getBusyTimes(int id, TimeRange window) {
+    List<TimeRange> ranges = getBusyTimes(id);
+    int from = firstEndingAfter(ranges, window.start());
+    int to = from;
+    while (to < ranges.size() && ranges.get(to).start() < window.end()) {
+      to++;
+    }
+    Calendar calendar = calendar(id);
+    if (calendar == null || calendar.recurring.isEmpty()) {
+      return ranges.subList(from, to);
+    }
+
+    IntervalBuffer busy = IntervalBuffer.of(ranges.subList(from, to));
+    for (Event event : calendar.recurring) {
+      event.addOccurrences(window, busy);
+    }
+    return Collections.unmodifiableList(busy.merge().toTimeRanges());
+  }
+
+  @Override
+  public long getVersion(int id) {
+    Calendar calendar = calendar(id);
+    return calendar == null ? 0 : calendar.version;
+  }
+
+  /**
+   * Adds {@code event} to the busy times of each of its attendees.
+   */
+  public synchronized void add(Event event) {
+    events.merge(event, 1, Integer::sum);
+    changes++;
+    for (String attendee : event.getAttendees()) {
+      int id = dictionary.intern(attendee);
+      Calendar calendar = calendar(id);
+      if (calendar == null) {
+        calendar = newCalendar(id);
+      }
+      if (event.getRecurrence() != null) {
+        calendar.addRecurring(event, changes);
+      } else {
+        calendar.add(event.getWhen(), 1, changes);
+      }
+    }
+  }
+
+  /**
+   * Removes {@code event} from the busy times of each of its attendees. Does nothing for events
+   * that were never added.
+   */
+  public synchronized void remove(Event event) {
+    Integer count = events.get(event);
+    if (count == null) {
+      return;
+    }
+    if (count == 1) {
+      events.remove(event);
+    } else {
+      events.put(event, count - 1);
+    }
+
+    changes++;
+    for (String attendee : event.getAttendees()) {
+      Calendar calendar = calendar(dictionary.idOf(attendee));
+      if (event.getRecurrence() != null) {
+        calendar.removeRecurring(event, changes);
+      } else {
+        calendar.add(event.getWhen(), -1, changes);
+      }
+    }
+  }
+
+  private Calendar calendar(int id) {
+    Calendar[] snapshot = calendars;
+    return id >= 0 && id < snapshot.length ? snapshot[id] : null;
+  }
+
+  /**
+   * Creates and publishes the calendar of attendee {@code id}. Must hold the index lock.
+   */
+  private Calendar newCalendar(int id) {
+    Calendar[] grown = calendars;
+    if (id >= grown.length) {
+      grown = Arrays.copyOf(grown, Math.max(id + 1, 2 * grown.length));
+    }
+    Calendar calendar = new Calendar();
+    grown[id] = calendar;
+    calendars = grown;
+    return calendar;
+  }
+
+  /**
+   * Returns the index of the first of the merged {@code ranges} that ends after {@code minute}.
+   */
+  private static int firstEndingAfter(List<TimeRange> ranges, int minute) {
+    // Merged ranges are disjoint, so their ends are sorted too.
+    int low = 0;
+    int high = ranges.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (ranges.get(middle).end() <= minute) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the first of the merged {@code ranges} that ends at or after
+   * {@code minute}, which is the first one {@code minute} overlaps or touches.
+   */
+  private static int firstEndingAtOrAfter(List<TimeRange> ranges, int minute) {
+    return firstEndingAfter(ranges, minute - 1);
+  }
+
+  /**
+   * Returns the index of the first of the merged {@code ranges} that starts after {@code minute}.
+   */
+  private static int firstStartingAfter(List<TimeRange> ranges, int minute) {
+    int low = 0;
+    int high = ranges.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (ranges.get(middle).start() <= minute) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * One attendee's calendar. Only changed while holding the index lock.
+   */
+  private static final class Calendar {
+    // Minute -> how many ranges cover the minutes from there up to the next key. Minutes before
+    // the first key are covered by none, and a key is only kept where the count changes.
+    private final TreeMap<Integer, Integer> depths = new TreeMap<>();
+
+    // The merged busy times, replaced as a whole on every change.
+    private volatile List<TimeRange> busyTimes = Collections.emptyList();
+    private volatile long version;
+
+    // Recurring events, replaced as a whole on every change so lookups can iterate without a lock.
+    private volatile List<Event> recurring = Collections.emptyList();
+
+    /**
+     * Adds {@code range} to the calendar {@code times} times, or removes it if {@code times} is
+     * negative.
+     */
+    void add(TimeRange range, int times, long version) {
+      if (range.duration() <= 0) {
+        return;
+      }
+      int start = range.start();
+      int end = range.end();
+
+      // Pin the counts at both ends, then shift every count inside the range.
+      depths.putIfAbsent(end, depthAt(end));
+      depths.putIfAbsent(start, depthAt(start));
+      for (Map.Entry<Integer, Integer> entry : depths.subMap(start, end).entrySet()) {
+        entry.setValue(entry.getValue() + times);
+      }
+      dropIfUnchanged(start);
+      dropIfUnchanged(end);
+
+      splice(start, end);
+      this.version = version;
+    }
+
+    void addRecurring(Event event, long version) {
+      List<Event> updated = new ArrayList<>(recurring);
+      updated.add(event);
+      recurring = updated;
+      this.version = version;
+    }
+
+    void removeRecurring(Event event, long version) {
+      List<Event> updated = new ArrayList<>(recurring);
+      updated.remove(event);
+      recurring = updated;
+      this.version = version;
+    }
+
+    /**
+     * Replaces the merged ranges that overlap or touch {@code [start, end]} with the coverage
+     * recomputed over that stretch.
+     */
+    private void splice(int start, int end) {
+      List<TimeRange> old = busyTimes;
+      int first = firstEndingAtOrAfter(old, start);
+      int last = firstStartingAfter(old, end);
+
+      // Nothing is covered just before from or just after to, before or after the change.
+      int from = first < last ? Math.min(start, old.get(first).start()) : start;
+      int to = first < last ? Math.max(end, old.get(last - 1).end()) : end;
+
+      List<TimeRange> updated = new ArrayList<>(old.size() + 1);
+      updated.addAll(old.subList(0, first));
+      int before = 0;
+      int coveredFrom = 0;
+      for (Map.Entry<Integer, Integer> entry : depths.subMap(from, true, to, true).entrySet()) {
+        int depth = entry.getValue();
+        if (before == 0 && depth > 0) {
+          coveredFrom = entry.getKey();
+        } else if (before > 0 && depth == 0) {
+          updated.add(TimeRange.fromStartEnd(coveredFrom, entry.getKey(), false));
+        }
+        before = depth;
+      }
+      updated.addAll(old.subList(last, old.size()));
+      busyTimes = Collections.unmodifiableList(updated);
+    }
+
+    /** Returns how many ranges cover {@code minute}. */
+    private int depthAt(int minute) {
+      Map.Entry<Integer, Integer> floor = depths.floorEntry(minute);
+      return floor == null ? 0 : floor.getValue();
+    }
+
+    /** Removes the key at {@code minute} if the count does not change there. */
+    private void dropIfUnchanged(int minute) {
+      Map.Entry<Integer, Integer> lower = depths.lowerEntry(minute);
+      int before = lower == null ? 0 : lower.getValue();
+      if (depths.get(minute) == before) {
+        depths.remove(minute);
+      }
+    }
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numbers attendee names with dense int ids, in the order they are first seen. Each name is hashed
+ * once when a calendar is ingested or a request arrives; after that the meeting engines index
+ * arrays by id instead of looking names up in maps.
+ *
+ * <p>Ids are never reused or reassigned, so they can be cached for as long as the dictionary
+ * lives. Dictionaries are safe to use from many threads.
+ */
+public final class AttendeeDictionary {
+  /** The id returned for names that are not in the dictionary. */
+  public static final int NO_ID = -1;
+
+  private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+  // Id -> name. Only grown while holding the lock, and republished after every write so readers
+  // that find an id in ids also see its name.
+  private volatile String[] names = new String[16];
+  private int size;
+
+  /**
+   * Returns the id of {@code name}, adding it to the dictionary if it is new.
+   */
+  public int intern(String name) {
+    Integer id = ids.get(name);
+    return id != null ? id : add(name);
+  }
+
+  /**
+   * Returns the id of {@code name}, or {@link #NO_ID} if it is not in the dictionary.
+   */
+  public int idOf(String name) {
+    Integer id = ids.get(name);
+    return id != null ? id : NO_ID;
+  }
+
+  /**
+   * Returns the ids of {@code names}, in iteration order. Names that are not in the dictionary get
+   * {@link #NO_ID}.
+   */
+  public int[] idsOf(Collection<String> names) {
+    int[] result = new int[names.size()];
+    int i = 0;
+    for (String name : names) {
+      result[i++] = idOf(name);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the name with id {@code id}.
+   */
+  public String nameOf(int id) {
+    String[] snapshot = names;
+    if (id < 0 || id >= snapshot.length || snapshot[id] == null) {
+      throw new IllegalArgumentException("unknown attendee id " + id);
+    }
+    return snapshot[id];
+  }
+
+  /**
+   * Returns how many names the dictionary holds. Every id is below this.
+   */
+  public int size() {
+    return ids.size();
+  }
+
+  private synchronized int add(String name) {
+    Integer existing = ids.get(name);
+    if (existing != null) {
+      return existing;
+    }
+
+    String[] grown = size < names.length ? names : Arrays.copyOf(names, 2 * names.length);
+    grown[size] = name;
+    names = grown;
+    ids.put(name, size);
+    return size++;
+  }
+}
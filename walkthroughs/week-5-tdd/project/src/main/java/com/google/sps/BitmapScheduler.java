@@ -0,0 +1,146 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds meeting times by painting busy minutes into {@link DayBitmap}s. Every required attendee's
+ * events land in the same bitmap, so intersecting their schedules costs nothing beyond setting the
+ * bits, and the free windows are read back with word-at-a-time scans.
+ */
+public final class BitmapScheduler {
+  // Where phase latencies and busy ranges read are recorded, or null to not record them.
+  private final QueryMetrics metrics;
+
+  /**
+   * Creates a scheduler that records nothing.
+   */
+  public BitmapScheduler() {
+    this(null);
+  }
+
+  /**
+   * Creates a scheduler that records how long each phase of a query takes in {@code metrics}, or
+   * nothing if it is null.
+   */
+  public BitmapScheduler(QueryMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the times when every required attendee is free for at least the requested duration.
+   * If optional attendees are given, only the windows where the most of them can also attend are
+   * returned.
+   */
+  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Arrays.asList();
+    }
+
+    long phaseStart = QueryMetrics.startTimer(metrics);
+    DayBitmap required = DayBitmap.busy(events, request.getAttendees());
+    phaseStart = QueryMetrics.lap(metrics, QueryMetrics.Phase.SCHEDULE_EVENTS, phaseStart);
+    IntervalBuffer meetingTimes = required.freeIntervals(request.getDuration());
+    phaseStart =
+        QueryMetrics.lap(metrics, QueryMetrics.Phase.DETERMINE_AVAILABLE_TIME, phaseStart);
+    if (request.getOptionalAttendees().isEmpty() || meetingTimes.size() == 0) {
+      return meetingTimes.toTimeRanges();
+    }
+
+    Map<String, DayBitmap> optionalBusy = new HashMap<>();
+    for (String optionalAttendee : request.getOptionalAttendees()) {
+      optionalBusy.put(optionalAttendee, new DayBitmap());
+    }
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        DayBitmap bitmap = optionalBusy.get(attendee);
+        if (bitmap != null) {
+          bitmap.add(event);
+        }
+      }
+    }
+
+    List<List<TimeRange>> optionalRanges = new ArrayList<>();
+    for (DayBitmap bitmap : optionalBusy.values()) {
+      optionalRanges.add(bitmap.busyRanges());
+    }
+    return mostAttendedWindows(meetingTimes, optionalRanges, request, phaseStart);
+  }
+
+  /**
+   * Answers {@code request} from the busy times in {@code index}. Only the attendees named in the
+   * request are looked up.
+   */
+  public Collection<TimeRange> query(BusyTimes index, MeetingRequest request) {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Arrays.asList();
+    }
+
+    long phaseStart = QueryMetrics.startTimer(metrics);
+    AttendeeDictionary dictionary = index.getAttendeeDictionary();
+    int[] ids = dictionary.idsOf(request.getAttendees());
+    phaseStart = QueryMetrics.lap(metrics, QueryMetrics.Phase.INIT_SCHEDULES, phaseStart);
+
+    DayBitmap required = new DayBitmap();
+    long rangesRead = 0;
+    for (int id : ids) {
+      List<TimeRange> busy = index.getBusyTimes(id, TimeRange.WHOLE_DAY);
+      for (TimeRange range : busy) {
+        required.add(range);
+      }
+      rangesRead += busy.size();
+    }
+    phaseStart = QueryMetrics.lap(metrics, QueryMetrics.Phase.SCHEDULE_EVENTS, phaseStart);
+    IntervalBuffer meetingTimes = required.freeIntervals(request.getDuration());
+    phaseStart =
+        QueryMetrics.lap(metrics, QueryMetrics.Phase.DETERMINE_AVAILABLE_TIME, phaseStart);
+    if (request.getOptionalAttendees().isEmpty() || meetingTimes.size() == 0) {
+      addBusyRangesRead(rangesRead);
+      return meetingTimes.toTimeRanges();
+    }
+
+    // The index already keeps each attendee's busy times sorted and merged.
+    List<List<TimeRange>> optionalRanges = new ArrayList<>();
+    for (int id : dictionary.idsOf(request.getOptionalAttendees())) {
+      optionalRanges.add(index.getBusyTimes(id, TimeRange.WHOLE_DAY));
+    }
+    addBusyRangesRead(rangesRead + SweepLineScheduler.size(optionalRanges));
+    return mostAttendedWindows(meetingTimes, optionalRanges, request, phaseStart);
+  }
+
+  /**
+   * Narrows {@code meetingTimes} to the windows the most optional attendees can attend, timing it
+   * as one phase since {@code phaseStart}.
+   */
+  private List<TimeRange> mostAttendedWindows(IntervalBuffer meetingTimes,
+      List<List<TimeRange>> optionalRanges, MeetingRequest request, long phaseStart) {
+    List<TimeRange> answer = OptionalAttendeeOptimizer.mostAttendedWindows(
+        meetingTimes, optionalRanges, request.getDuration());
+    QueryMetrics.lap(metrics, QueryMetrics.Phase.DETERMINE_FREQUENCY, phaseStart);
+    return answer;
+  }
+
+  private void addBusyRangesRead(long ranges) {
+    if (metrics != null) {
+      metrics.addBusyRangesRead(ranges);
+    }
+  }
+}
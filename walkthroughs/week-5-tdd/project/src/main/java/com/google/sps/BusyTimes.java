@@ -0,0 +1,76 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.List;
+
+/**
+ * Where the meeting engines look up when attendees are busy. Implementations keep each attendee's
+ * busy times sorted by start and merged so no two ranges overlap or touch.
+ *
+ * <p>Attendees are looked up by their id in {@link #getAttendeeDictionary()}. The engines resolve
+ * the names in a request once and use the ids from then on; the lookups by name are shortcuts for
+ * everything else.
+ */
+public interface BusyTimes {
+  /**
+   * Returns the dictionary that numbers the attendees of these busy times.
+   */
+  AttendeeDictionary getAttendeeDictionary();
+
+  /**
+   * Returns a read-only list of the times attendee {@code id} is busy, sorted by start and merged.
+   * Returns an empty list for {@link AttendeeDictionary#NO_ID} and for attendees without events.
+   * A series of recurring events may never end, so only the windowed lookups include them.
+   */
+  List<TimeRange> getBusyTimes(int id);
+
+  /**
+   * Returns a read-only list of the times attendee {@code id} is busy that overlap {@code window},
+   * sorted by start and merged.
+   */
+  List<TimeRange> getBusyTimes(int id, TimeRange window);
+
+  /**
+   * Returns a number that changes whenever the busy times of attendee {@code id} change. Attendees
+   * without events are at version 0.
+   */
+  long getVersion(int id);
+
+  /**
+   * Returns a read-only list of the times {@code attendee} is busy, sorted by start and merged.
+   * Returns an empty list for attendees without events. Like {@link #getBusyTimes(int)}, this
+   * leaves out recurring events.
+   */
+  default List<TimeRange> getBusyTimes(String attendee) {
+    return getBusyTimes(getAttendeeDictionary().idOf(attendee));
+  }
+
+  /**
+   * Returns a read-only list of the times {@code attendee} is busy that overlap {@code window},
+   * sorted by start and merged.
+   */
+  default List<TimeRange> getBusyTimes(String attendee, TimeRange window) {
+    return getBusyTimes(getAttendeeDictionary().idOf(attendee), window);
+  }
+
+  /**
+   * Returns a number that changes whenever the busy times of {@code attendee} change. Attendees
+   * without events are at version 0.
+   */
+  default long getVersion(String attendee) {
+    return getVersion(getAttendeeDictionary().idOf(attendee));
+  }
+}
@@ -0,0 +1,416 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.TreeSet;
+
+/**
+ * A compact, read-only binary image of a calendar that can be memory-mapped and queried in place.
+ *
+ * <p>The format has four sections after a fixed header:
+ *
+ * <ol>
+ *   <li>A dictionary of attendee names, sorted, each stored once. Attendees are referred to by
+ *       their position in the dictionary everywhere else.
+ *   <li>The events, sorted by start. Each start is stored as the difference from the previous
+ *       one, and each attendee list as differences between sorted ids, all as variable-length
+ *       ints, so most numbers take one or two bytes.
+ *   <li>For each attendee, where their busy times begin in the next section.
+ *   <li>Every attendee's merged busy times as fixed-width start/end pairs, so they can be binary
+ *       searched without decoding anything.
+ * </ol>
+ *
+ * <p>Only the attendee names are copied onto the heap when a snapshot is opened. Busy time
+ * lookups read straight from the buffer, and events are only decoded if {@link #getEvents()} is
+ * called or, one at a time, as an {@link EventCatalog} of the snapshot lists them. Snapshots never
+ * change, so every attendee stays at version 0.
+ */
+public final class CalendarSnapshot implements BusyTimes {
+  // "CAL1" in ASCII.
+  private static final int MAGIC = 0x43414C31;
+  private static final int HEADER_BYTES = 6 * Integer.BYTES;
+
+  private final ByteBuffer buffer;
+  private final AttendeeDictionary attendees = new AttendeeDictionary();
+  private final int eventCount;
+  private final int eventsOffset;
+  private final int busyIndexOffset;
+  private final int busyDataOffset;
+
+  private CalendarSnapshot(ByteBuffer buffer) {
+    this.buffer = buffer.duplicate();
+    if (this.buffer.remaining() < HEADER_BYTES || this.buffer.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("not a calendar snapshot");
+    }
+    int attendeeCount = this.buffer.getInt(4);
+    eventCount = this.buffer.getInt(8);
+    eventsOffset = this.buffer.getInt(12);
+    busyIndexOffset = this.buffer.getInt(16);
+    busyDataOffset = this.buffer.getInt(20);
+
+    // Interning the names in stored order gives every attendee the same id as in the file.
+    ByteBuffer dictionary = this.buffer.duplicate();
+    dictionary.position(HEADER_BYTES);
+    for (int id = 0; id < attendeeCount; id++) {
+      attendees.intern(readString(dictionary));
+    }
+  }
+
+  /**
+   * Opens the snapshot stored in {@code buffer}. The buffer must not change afterwards.
+   */
+  public static CalendarSnapshot wrap(ByteBuffer buffer) {
+    return new CalendarSnapshot(buffer);
+  }
+
+  /**
+   * Memory-maps the snapshot file at {@code path}. The file must not change while it is mapped.
+   */
+  public static CalendarSnapshot map(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return new CalendarSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Writes a snapshot of {@code events} to {@code out}. Snapshots store concrete busy times, so
+   * recurring events must be expanded into their occurrences first.
+   */
+  public static void write(Collection<Event> events, OutputStream out) throws IOException {
+    TreeSet<String> names = new TreeSet<>();
+    for (Event event : events) {
+      if (event.getRecurrence() != null) {
+        throw new IllegalArgumentException("recurring events must be expanded first");
+      }
+      names.addAll(event.getAttendees());
+    }
+    AttendeeDictionary ids = new AttendeeDictionary();
+    ByteArrayOutputStream dictionary = new ByteArrayOutputStream();
+    for (String name : names) {
+      ids.intern(name);
+      writeString(dictionary, name);
+    }
+
+    List<Event> byStart = new ArrayList<>(events);
+    Collections.sort(byStart, (a, b) -> TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()));
+    ByteArrayOutputStream eventBytes = new ByteArrayOutputStream();
+    int previousStart = 0;
+    for (Event event : byStart) {
+      writeString(eventBytes, event.getTitle());
+      writeVarint(eventBytes, zigZag(event.getWhen().start() - previousStart));
+      writeVarint(eventBytes, event.getWhen().duration());
+      previousStart = event.getWhen().start();
+
+      List<Integer> attendees = new ArrayList<>();
+      for (String attendee : event.getAttendees()) {
+        attendees.add(ids.idOf(attendee));
+      }
+      Collections.sort(attendees);
+      writeVarint(eventBytes, attendees.size());
+      int previousId = 0;
+      for (int id : attendees) {
+        writeVarint(eventBytes, id - previousId);
+        previousId = id;
+      }
+    }
+
+    AttendeeBusyIndex index = new AttendeeBusyIndex(ids);
+    for (Event event : events) {
+      index.add(event);
+    }
+    ByteArrayOutputStream busyIndexBytes = new ByteArrayOutputStream();
+    ByteArrayOutputStream busyDataBytes = new ByteArrayOutputStream();
+    DataOutputStream busyIndex = new DataOutputStream(busyIndexBytes);
+    DataOutputStream busyData = new DataOutputStream(busyDataBytes);
+    int ranges = 0;
+    for (String name : names) {
+      busyIndex.writeInt(ranges);
+      for (TimeRange range : index.getBusyTimes(ids.idOf(name))) {
+        busyData.writeInt(range.start());
+        busyData.writeInt(range.end());
+        ranges++;
+      }
+    }
+    busyIndex.writeInt(ranges);
+
+    int eventsOffset = HEADER_BYTES + dictionary.size();
+    int busyIndexOffset = eventsOffset + eventBytes.size();
+    DataOutputStream header = new DataOutputStream(out);
+    header.writeInt(MAGIC);
+    header.writeInt(names.size());
+    header.writeInt(byStart.size());
+    header.writeInt(eventsOffset);
+    header.writeInt(busyIndexOffset);
+    header.writeInt(busyIndexOffset + busyIndexBytes.size());
+    dictionary.writeTo(out);
+    eventBytes.writeTo(out);
+    busyIndexBytes.writeTo(out);
+    busyDataBytes.writeTo(out);
+    out.flush();
+  }
+
+  /**
+   * Returns the number of events in the snapshot.
+   */
+  public int getEventCount() {
+    return eventCount;
+  }
+
+  /**
+   * Returns a hash of the snapshot's events. Snapshots of different events all but certainly have
+   * different fingerprints.
+   */
+  public long getFingerprint() {
+    long hash = 17;
+    for (int i = eventsOffset; i < busyIndexOffset; i++) {
+      hash = 31 * hash + buffer.get(i);
+    }
+    return hash;
+  }
+
+  /**
+   * Decodes every event in the snapshot, sorted by start. Queries never need the events
+   * themselves; this is for listing them, for tools and for tests.
+   */
+  public List<Event> getEvents() {
+    ByteBuffer in = buffer.duplicate();
+    in.position(eventsOffset);
+    List<Event> events = new ArrayList<>(eventCount);
+    int start = 0;
+    for (int i = 0; i < eventCount; i++) {
+      String title = readString(in);
+      start += unZigZag(readVarint(in));
+      int duration = readVarint(in);
+      events.add(new Event(title, TimeRange.fromStartDuration(start, duration), readNames(in)));
+    }
+    return events;
+  }
+
+  /**
+   * Walks the events once without decoding their titles or attendee names, and returns where each
+   * is stored and when it takes place, and which events each attendee attends.
+   */
+  EventLayout layOutEvents() {
+    EventLayout layout = new EventLayout(eventCount, attendees.size());
+    int[] counts = new int[attendees.size()];
+    ByteBuffer in = buffer.duplicate();
+    in.position(eventsOffset);
+    int start = 0;
+    for (int i = 0; i < eventCount; i++) {
+      layout.offsets[i] = in.position();
+      int titleLength = readVarint(in);
+      in.position(in.position() + titleLength);
+      start += unZigZag(readVarint(in));
+      layout.starts[i] = start;
+      layout.ends[i] = start + readVarint(in);
+
+      int attendeeCount = readVarint(in);
+      int id = 0;
+      for (int j = 0; j < attendeeCount; j++) {
+        id += readVarint(in);
+        int[] positions = layout.positions[id];
+        if (counts[id] == positions.length) {
+          positions = layout.positions[id] = Arrays.copyOf(positions, Math.max(4, 2 * counts[id]));
+        }
+        positions[counts[id]++] = i;
+      }
+    }
+    for (int id = 0; id < counts.length; id++) {
+      layout.positions[id] = Arrays.copyOf(layout.positions[id], counts[id]);
+    }
+    return layout;
+  }
+
+  /**
+   * Decodes the event stored at {@code offset}, which starts at {@code start}. Starts are stored
+   * as differences, so the caller has to know it.
+   */
+  Event eventAt(int offset, int start) {
+    ByteBuffer in = buffer.duplicate();
+    in.position(offset);
+    String title = readString(in);
+    readVarint(in);
+    int duration = readVarint(in);
+    return new Event(title, TimeRange.fromStartDuration(start, duration), readNames(in));
+  }
+
+  private List<String> readNames(ByteBuffer in) {
+    int attendeeCount = readVarint(in);
+    List<String> names = new ArrayList<>(attendeeCount);
+    int id = 0;
+    for (int j = 0; j < attendeeCount; j++) {
+      id += readVarint(in);
+      names.add(attendees.nameOf(id));
+    }
+    return names;
+  }
+
+  @Override
+  public AttendeeDictionary getAttendeeDictionary() {
+    return attendees;
+  }
+
+  @Override
+  public List<TimeRange> getBusyTimes(int id) {
+    if (!isAttendee(id)) {
+      return Collections.<TimeRange>emptyList();
+    }
+    return new Ranges(firstRange(id), firstRange(id + 1));
+  }
+
+  @Override
+  public List<TimeRange> getBusyTimes(int id, TimeRange window) {
+    if (!isAttendee(id)) {
+      return Collections.<TimeRange>emptyList();
+    }
+
+    // Merged ranges are disjoint, so their ends are sorted too.
+    int low = firstRange(id);
+    int high = firstRange(id + 1);
+    int end = high;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (rangeEnd(middle) <= window.start()) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    int to = low;
+    while (to < end && rangeStart(to) < window.end()) {
+      to++;
+    }
+    return new Ranges(low, to);
+  }
+
+  @Override
+  public long getVersion(int id) {
+    return 0;
+  }
+
+  private boolean isAttendee(int id) {
+    return id >= 0 && id < attendees.size();
+  }
+
+  private int firstRange(int id) {
+    return buffer.getInt(busyIndexOffset + id * Integer.BYTES);
+  }
+
+  private int rangeStart(int range) {
+    return buffer.getInt(busyDataOffset + range * 2 * Integer.BYTES);
+  }
+
+  private int rangeEnd(int range) {
+    return buffer.getInt(busyDataOffset + range * 2 * Integer.BYTES + Integer.BYTES);
+  }
+
+  private static void writeString(ByteArrayOutputStream out, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarint(out, bytes.length);
+    out.write(bytes, 0, bytes.length);
+  }
+
+  private static String readString(ByteBuffer in) {
+    byte[] bytes = new byte[readVarint(in)];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /** Writes {@code value} as an unsigned LEB128 varint: seven bits per byte, low bits first. */
+  private static void writeVarint(ByteArrayOutputStream out, int value) {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  private static int readVarint(ByteBuffer in) {
+    int value = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte next = in.get();
+      value |= (next & 0x7F) << shift;
+      if (next >= 0) {
+        return value;
+      }
+    }
+  }
+
+  /** Maps small negative numbers to small unsigned ones: 0, -1, 1, -2 become 0, 1, 2, 3. */
+  private static int zigZag(int value) {
+    return (value << 1) ^ (value >> 31);
+  }
+
+  private static int unZigZag(int value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /** Where the events are stored and when they take place, by position in start order. */
+  static final class EventLayout {
+    final int[] offsets;
+    final int[] starts;
+    final int[] ends;
+    // For each attendee id, the positions of the events they attend, in order.
+    final int[][] positions;
+
+    EventLayout(int eventCount, int attendeeCount) {
+      offsets = new int[eventCount];
+      starts = new int[eventCount];
+      ends = new int[eventCount];
+      positions = new int[attendeeCount][];
+      Arrays.fill(positions, new int[0]);
+    }
+  }
+
+  /** A read-only view of the busy ranges from {@code from} to {@code to} in the buffer. */
+  private final class Ranges extends AbstractList<TimeRange> implements RandomAccess {
+    private final int from;
+    private final int to;
+
+    Ranges(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    public TimeRange get(int index) {
+      if (index < 0 || index >= size()) {
+        throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+      }
+      return TimeRange.fromStartEnd(rangeStart(from + index), rangeEnd(from + index), false);
+    }
+
+    @Override
+    public int size() {
+      return to - from;
+    }
+  }
+}
@@ -0,0 +1,88 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.List;
+
+/**
+ * Turns the working hours and buffer of a {@link MeetingRequest} into interval masks. The
+ * engines find free windows from the busy index as usual and then AND them with the mask, so a
+ * constraint costs one pass over a handful of intervals instead of another pass over the events.
+ */
+final class ConstraintMask {
+  private ConstraintMask() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns {@code window} widened by {@code buffer} minutes on both sides, so that busy times just
+   * outside the window whose buffer reaches into it are looked up too.
+   */
+  static TimeRange widen(TimeRange window, long buffer) {
+    if (buffer == 0) {
+      return window;
+    }
+    return TimeRange.fromStartEnd(
+        (int) (window.start() - buffer), (int) (window.end() + buffer), false);
+  }
+
+  /**
+   * Keeps only the parts of {@code meetingTimes} when every required attendee of {@code request}
+   * is within their working hours, dropping windows that become shorter than the meeting. Returns
+   * {@code meetingTimes}.
+   */
+  static IntervalBuffer restrict(IntervalBuffer meetingTimes, MeetingRequest request) {
+    IntervalBuffer mask = null;
+    for (String attendee : request.getAttendees()) {
+      List<TimeRange> hours = request.getWorkingHours().get(attendee);
+      if (hours == null) {
+        continue;
+      }
+      IntervalBuffer working = IntervalBuffer.of(hours).merge();
+      mask = mask == null ? working : mask.intersect(working);
+    }
+    if (mask == null) {
+      return meetingTimes;
+    }
+    return meetingTimes.intersect(mask).removeShorterThan(request.getDuration());
+  }
+
+  /**
+   * Returns the times inside {@code horizon} that {@code attendee} cannot meet: the sorted
+   * {@code busy} ranges widened by the request's buffer, plus the time outside their working
+   * hours. Returns {@code busy} itself when the request has no constraints for them.
+   */
+  static List<TimeRange> unavailable(
+      List<TimeRange> busy, String attendee, MeetingRequest request, TimeRange horizon) {
+    long buffer = request.getBuffer();
+    List<TimeRange> hours = request.getWorkingHours().get(attendee);
+    if (buffer == 0 && hours == null) {
+      return busy;
+    }
+
+    IntervalBuffer unavailable = new IntervalBuffer(busy.size() + 1);
+    for (TimeRange range : busy) {
+      unavailable.add((int) (range.start() - buffer), (int) (range.end() + buffer));
+    }
+    if (hours != null) {
+      IntervalBuffer offHours =
+          IntervalBuffer.of(hours).merge().complement(horizon.start(), horizon.end());
+      for (int i = 0; i < offHours.size(); i++) {
+        unavailable.add(offHours.start(i), offHours.end(i));
+      }
+    }
+    return unavailable.merge().toTimeRanges();
+  }
+}
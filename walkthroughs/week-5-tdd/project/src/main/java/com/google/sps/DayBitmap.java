@@ -0,0 +1,217 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A set of minutes within a single day, stored one bit per minute. A day is only
+ * {@code TimeRange.WHOLE_DAY.duration()} minutes long, so the whole set fits in a small
+ * {@code long[]} and combining the schedules of two attendees is a handful of word operations.
+ *
+ * <p>A set bit means the minute is busy. Bitmaps are mutable: the combining methods update this
+ * bitmap in place and return it so calls can be chained.
+ */
+public final class DayBitmap {
+  private static final int MINUTES = TimeRange.WHOLE_DAY.duration();
+  private static final int WORDS = (MINUTES + Long.SIZE - 1) / Long.SIZE;
+
+  private final long[] words = new long[WORDS];
+
+  /**
+   * Returns a bitmap of the minutes when any of {@code attendees} is in one of {@code events}.
+   */
+  public static DayBitmap busy(Collection<Event> events, Collection<String> attendees) {
+    DayBitmap bitmap = new DayBitmap();
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        if (attendees.contains(attendee)) {
+          bitmap.add(event);
+          break;
+        }
+      }
+    }
+    return bitmap;
+  }
+
+  /**
+   * Marks every minute of the day that {@code event} takes place in as busy, including each
+   * occurrence of a recurring event.
+   */
+  public DayBitmap add(Event event) {
+    if (event.getRecurrence() == null) {
+      return add(event.getWhen());
+    }
+    for (TimeRange occurrence : event.occurrences(TimeRange.WHOLE_DAY)) {
+      add(occurrence);
+    }
+    return this;
+  }
+
+  /**
+   * Marks every minute of {@code range} as busy. Minutes outside of the day are ignored.
+   */
+  public DayBitmap add(TimeRange range) {
+    int from = Math.max(range.start(), 0);
+    int to = Math.min(range.end(), MINUTES);
+    if (from >= to) {
+      return this;
+    }
+
+    int firstWord = from / Long.SIZE;
+    int lastWord = (to - 1) / Long.SIZE;
+    // Shifts only use the low six bits, so these masks cover [from % 64, 64) and [0, to % 64).
+    long firstMask = -1L << from;
+    long lastMask = -1L >>> -to;
+    if (firstWord == lastWord) {
+      words[firstWord] |= firstMask & lastMask;
+      return this;
+    }
+    words[firstWord] |= firstMask;
+    for (int i = firstWord + 1; i < lastWord; i++) {
+      words[i] = -1L;
+    }
+    words[lastWord] |= lastMask;
+    return this;
+  }
+
+  /**
+   * Keeps only the minutes that are busy in both bitmaps.
+   */
+  public DayBitmap and(DayBitmap other) {
+    for (int i = 0; i < WORDS; i++) {
+      words[i] &= other.words[i];
+    }
+    return this;
+  }
+
+  /**
+   * Adds the minutes that are busy in {@code other}.
+   */
+  public DayBitmap or(DayBitmap other) {
+    for (int i = 0; i < WORDS; i++) {
+      words[i] |= other.words[i];
+    }
+    return this;
+  }
+
+  /**
+   * Removes the minutes that are busy in {@code other}.
+   */
+  public DayBitmap andNot(DayBitmap other) {
+    for (int i = 0; i < WORDS; i++) {
+      words[i] &= ~other.words[i];
+    }
+    return this;
+  }
+
+  /**
+   * Returns whether {@code minute} is busy.
+   */
+  public boolean isBusy(int minute) {
+    if (minute < 0 || minute >= MINUTES) {
+      return false;
+    }
+    return (words[minute / Long.SIZE] & (1L << minute)) != 0;
+  }
+
+  /**
+   * Returns the number of busy minutes.
+   */
+  public int busyMinutes() {
+    int count = 0;
+    for (long word : words) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the runs of busy minutes in ascending order.
+   */
+  public List<TimeRange> busyRanges() {
+    List<TimeRange> ranges = new ArrayList<>();
+    int start = nextBusy(0);
+    while (start < MINUTES) {
+      int end = nextFree(start);
+      ranges.add(TimeRange.fromStartEnd(start, end, false));
+      start = nextBusy(end);
+    }
+    return ranges;
+  }
+
+  /**
+   * Returns the runs of free minutes that last at least {@code minDuration} minutes, in ascending
+   * order.
+   */
+  public List<TimeRange> freeRanges(long minDuration) {
+    return freeIntervals(minDuration).toTimeRanges();
+  }
+
+  /**
+   * Returns the runs of free minutes that last at least {@code minDuration} minutes, in ascending
+   * order, without allocating a {@code TimeRange} per run.
+   */
+  public IntervalBuffer freeIntervals(long minDuration) {
+    IntervalBuffer intervals = new IntervalBuffer();
+    int start = nextFree(0);
+    while (start < MINUTES) {
+      int end = nextBusy(start);
+      if (end - start >= minDuration) {
+        intervals.add(start, end);
+      }
+      start = nextFree(end);
+    }
+    return intervals;
+  }
+
+  /**
+   * Returns the first busy minute at or after {@code from}, or the end of the day if there is none.
+   */
+  private int nextBusy(int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+    int index = from / Long.SIZE;
+    long word = words[index] & (-1L << from);
+    while (word == 0) {
+      if (++index == WORDS) {
+        return MINUTES;
+      }
+      word = words[index];
+    }
+    return Math.min(index * Long.SIZE + Long.numberOfTrailingZeros(word), MINUTES);
+  }
+
+  /**
+   * Returns the first free minute at or after {@code from}, or the end of the day if there is none.
+   */
+  private int nextFree(int from) {
+    if (from >= MINUTES) {
+      return MINUTES;
+    }
+    int index = from / Long.SIZE;
+    long word = ~words[index] & (-1L << from);
+    while (word == 0) {
+      if (++index == WORDS) {
+        return MINUTES;
+      }
+      word = ~words[index];
+    }
+    return Math.min(index * Long.SIZE + Long.numberOfTrailingZeros(word), MINUTES);
+  }
+}
@@ -17,6 +17,8 @@ package com.google.sps;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -27,6 +29,7 @@ public final class Event {
   private final String title;
   private final TimeRange when;
   private final Set<String> attendees = new HashSet<>();
+  private final Recurrence recurrence;
 
   /**
    * Creates a new event.
@@ -36,6 +39,18 @@ public final class Event {
    * @param attendees The collection of people attending the event. Must be non-null.
    */
   public Event(String title, TimeRange when, Collection<String> attendees) {
+    this(title, when, attendees, null);
+  }
+
+  /**
+   * Creates a new event that repeats.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param when The time of the first occurrence. Must be non-null.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   * @param recurrence How the event repeats, or null if it happens once.
+   */
+  public Event(String title, TimeRange when, Collection<String> attendees, Recurrence recurrence) {
     if (title == null) {
       throw new IllegalArgumentException("title cannot be null");
     }
@@ -51,6 +66,7 @@ public final class Event {
     this.title = title;
     this.when = when;
     this.attendees.addAll(attendees);
+    this.recurrence = recurrence;
   }
 
   /**
@@ -61,7 +77,8 @@ public final class Event {
   }
 
   /**
-   * Returns the {@code TimeRange} for when this event occurs.
+   * Returns the {@code TimeRange} for when this event occurs. For recurring events this is the
+   * first occurrence.
    */
   public TimeRange getWhen() {
     return when;
@@ -76,6 +93,34 @@ public final class Event {
     return Collections.unmodifiableSet(attendees);
   }
 
+  /**
+   * Returns how this event repeats, or null if it happens once.
+   */
+  public Recurrence getRecurrence() {
+    return recurrence;
+  }
+
+  /**
+   * Returns the times this event takes place that overlap {@code window}, in start order. For
+   * recurring events only the occurrences in the window are generated.
+   */
+  public List<TimeRange> occurrences(TimeRange window) {
+    IntervalBuffer occurrences = new IntervalBuffer(1);
+    addOccurrences(window, occurrences);
+    return occurrences.toTimeRanges();
+  }
+
+  /**
+   * Appends the times this event takes place that overlap {@code window} to {@code out}.
+   */
+  void addOccurrences(TimeRange window, IntervalBuffer out) {
+    if (recurrence != null) {
+      recurrence.addOccurrences(when, window, out);
+    } else if (when.overlaps(window)) {
+      out.add(when);
+    }
+  }
+
   @Override
   public int hashCode() {
     // For the hash code, just use the title. Most events "should" have different names and will
@@ -91,6 +136,7 @@ public final class Event {
   private static boolean equals(Event a, Event b) {
     // {@code attendees} must be a set for equals to work as expected. According to the {@code Set}
     // interface documentation, equals will check for set-equality across all set implementations.
-    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
+    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees)
+        && Objects.equals(a.recurrence, b.recurrence);
   }
 }
@@ -0,0 +1,355 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntFunction;
+
+/**
+ * A read-only listing of events that can be filtered by attendee and time window and read a page
+ * at a time.
+ *
+ * <p>Events are kept sorted by start time, and each attendee maps to the positions of their events
+ * in that order. A tree over the events' end times gives, for any position, the next event that
+ * is still going on at a given minute, so a window skips events that ended before it in O(log n)
+ * however long the longest event is. Listing one person's afternoon does not walk the whole
+ * calendar. Only the events that go on a page are looked at as events, so a catalog of a
+ * {@link CalendarSnapshot} decodes each event as it is listed. A cursor is a position in the
+ * start-time order, so it stays valid for as long as the catalog does. Recurring events are
+ * expanded into the occurrences that overlap a window when a page is asked for, and cursors past
+ * the last position point at those occurrences, so they are only valid with the same window.
+ */
+public final class EventCatalog {
+  private static final int[] NO_EVENTS = new int[0];
+
+  // When each event starts and ends, in start order.
+  private final int[] starts;
+  private final int[] ends;
+
+  // Returns the event at a position. Only called for the events that go on a page.
+  private final IntFunction<Event> events;
+
+  // The positions of recurring events. Windows list their occurrences instead of them.
+  private final BitSet recurring;
+
+  private final Map<String, int[]> byAttendee;
+
+  // A max tree over the events' ends in start order: leaf i is the end of event i, every other
+  // node the latest end below it. Node 1 is the root and node k's children are 2k and 2k + 1.
+  private final int[] latestEnds;
+  private final int leaves;
+
+  private final long revision;
+
+  private EventCatalog(int[] starts, int[] ends, Map<String, int[]> byAttendee,
+      IntFunction<Event> events, BitSet recurring, long revision) {
+    this.starts = starts;
+    this.ends = ends;
+    this.byAttendee = byAttendee;
+    this.events = events;
+    this.recurring = recurring;
+    this.revision = revision;
+
+    leaves = Integer.highestOneBit(Math.max(1, starts.length - 1)) << 1;
+    latestEnds = new int[2 * leaves];
+    Arrays.fill(latestEnds, Integer.MIN_VALUE);
+    for (int i = 0; i < ends.length; i++) {
+      // Recurring events are never matched against a window directly.
+      latestEnds[leaves + i] = recurring.get(i) ? Integer.MIN_VALUE : ends[i];
+    }
+    for (int node = leaves - 1; node > 0; node--) {
+      latestEnds[node] = Math.max(latestEnds[2 * node], latestEnds[2 * node + 1]);
+    }
+  }
+
+  /**
+   * Creates a catalog of {@code events}. Events that start at the same time stay in the order they
+   * were given in.
+   */
+  public static EventCatalog of(Collection<Event> events) {
+    Event[] byStart = events.toArray(new Event[0]);
+    // Arrays.sort on objects is stable.
+    Arrays.sort(byStart, (a, b) -> TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()));
+
+    int[] starts = new int[byStart.length];
+    int[] ends = new int[byStart.length];
+    BitSet recurring = new BitSet();
+    Map<String, List<Integer>> positions = new HashMap<>();
+    long hash = 17;
+    for (int i = 0; i < byStart.length; i++) {
+      starts[i] = byStart[i].getWhen().start();
+      ends[i] = byStart[i].getWhen().end();
+      recurring.set(i, byStart[i].getRecurrence() != null);
+      hash = 31 * hash + hash(byStart[i]);
+      for (String attendee : byStart[i].getAttendees()) {
+        positions.computeIfAbsent(attendee, name -> new ArrayList<>()).add(i);
+      }
+    }
+    Map<String, int[]> byAttendee = new HashMap<>();
+    for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+      int[] attendeePositions = new int[entry.getValue().size()];
+      for (int i = 0; i < attendeePositions.length; i++) {
+        attendeePositions[i] = entry.getValue().get(i);
+      }
+      byAttendee.put(entry.getKey(), attendeePositions);
+    }
+    return new EventCatalog(starts, ends, byAttendee, i -> byStart[i], recurring, hash);
+  }
+
+  /**
+   * Creates a catalog of the events in {@code snapshot} that reads them from the snapshot in
+   * place. The events are walked once to index them, but only decoded when they go on a page.
+   */
+  public static EventCatalog of(CalendarSnapshot snapshot) {
+    CalendarSnapshot.EventLayout layout = snapshot.layOutEvents();
+    AttendeeDictionary attendees = snapshot.getAttendeeDictionary();
+    Map<String, int[]> byAttendee = new HashMap<>();
+    for (int id = 0; id < layout.positions.length; id++) {
+      if (layout.positions[id].length > 0) {
+        byAttendee.put(attendees.nameOf(id), layout.positions[id]);
+      }
+    }
+    // Snapshots only hold one-off events.
+    return new EventCatalog(layout.starts, layout.ends, byAttendee,
+        i -> snapshot.eventAt(layout.offsets[i], layout.starts[i]), new BitSet(),
+        snapshot.getFingerprint());
+  }
+
+  /**
+   * Returns the number of events in the catalog.
+   */
+  public int size() {
+    return starts.length;
+  }
+
+  /**
+   * Returns a fingerprint of the events in the catalog. Catalogs of different events all but
+   * certainly have different revisions, so the revision and a page's parameters identify the page.
+   */
+  public long getRevision() {
+    return revision;
+  }
+
+  /**
+   * Returns up to {@code limit} events, in start-time order, starting at {@code cursor}.
+   *
+   * <p>Without a window, a recurring event is listed once, at its first occurrence. Within a
+   * window, it is listed once for each occurrence that overlaps the window, as a one-off event at
+   * that time, after any other events that start at the same minute.
+   *
+   * @param attendee Only return events this person attends, or {@code null} for everyone.
+   * @param window Only return events that overlap this window, or {@code null} for any time.
+   * @param cursor Where to continue from: 0 for the first page, or the next cursor of the
+   *     previous page.
+   * @param limit The most events to return. Must be positive.
+   */
+  public Page page(String attendee, TimeRange window, int cursor, int limit) {
+    if (cursor < 0) {
+      throw new IllegalArgumentException("cursor cannot be negative");
+    }
+
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+
+    // Cursors past the events point at an occurrence in the window instead.
+    List<Occurrence> occurrences = window == null || recurring.isEmpty()
+        ? Collections.<Occurrence>emptyList() : occurrences(window);
+    int from = cursor;
+    int occurrence = 0;
+    if (cursor >= starts.length) {
+      occurrence = cursor - starts.length;
+      if (occurrence >= occurrences.size()) {
+        return new Page(new ArrayList<>(), Page.NO_CURSOR);
+      }
+      // Events that start with the occurrence come before it, so they were already listed.
+      from = firstStartingAtOrAfter(occurrences.get(occurrence).when.start() + 1);
+    } else {
+      while (occurrence < occurrences.size()
+          && occurrences.get(occurrence).when.start() < starts[cursor]) {
+        occurrence++;
+      }
+    }
+
+    int to = starts.length;
+    if (window != null) {
+      from = firstEndingAfter(from, window.start());
+      to = firstStartingAtOrAfter(window.end());
+    }
+
+    int[] positions = null;
+    int next = from;
+    if (attendee != null) {
+      positions = byAttendee.getOrDefault(attendee, NO_EVENTS);
+      next = Arrays.binarySearch(positions, from);
+      next = next >= 0 ? next : -next - 1;
+    }
+
+    List<Event> listed = new ArrayList<>(Math.min(limit, 64));
+    while (true) {
+      // Find the next matching event and the next matching occurrence, and list the earlier one.
+      int position;
+      while (true) {
+        if (positions != null) {
+          position = next < positions.length ? positions[next] : to;
+        } else if (window != null) {
+          // Jump over the events that ended before the window instead of checking each one.
+          position = firstEndingAfter(next, window.start());
+        } else {
+          position = next;
+        }
+        if (position >= to || window == null || (!recurring.get(position) && window.overlaps(
+            TimeRange.fromStartEnd(starts[position], ends[position], false)))) {
+          break;
+        }
+        next = positions == null ? position + 1 : next + 1;
+      }
+      while (occurrence < occurrences.size() && attendee != null
+          && !occurrences.get(occurrence).series.getAttendees().contains(attendee)) {
+        occurrence++;
+      }
+
+      boolean hasOccurrence = occurrence < occurrences.size();
+      if (position >= to && !hasOccurrence) {
+        return new Page(listed, Page.NO_CURSOR);
+      }
+      boolean isEvent = position < to
+          && (!hasOccurrence || starts[position] <= occurrences.get(occurrence).when.start());
+      if (listed.size() == limit) {
+        return new Page(listed, isEvent ? position : starts.length + occurrence);
+      }
+      if (isEvent) {
+        listed.add(events.apply(position));
+        next = positions == null ? position + 1 : next + 1;
+      } else {
+        Occurrence listedOccurrence = occurrences.get(occurrence++);
+        listed.add(new Event(listedOccurrence.series.getTitle(), listedOccurrence.when,
+            listedOccurrence.series.getAttendees()));
+      }
+    }
+  }
+
+  /**
+   * Returns the occurrences of recurring events that overlap {@code window}, by start and then by
+   * the position of their event.
+   */
+  private List<Occurrence> occurrences(TimeRange window) {
+    List<Occurrence> occurrences = new ArrayList<>();
+    for (int position = recurring.nextSetBit(0); position >= 0;
+        position = recurring.nextSetBit(position + 1)) {
+      Event series = events.apply(position);
+      for (TimeRange when : series.occurrences(window)) {
+        occurrences.add(new Occurrence(series, when));
+      }
+    }
+    // The sort is stable, so occurrences that start together stay in position order.
+    Collections.sort(occurrences, (a, b) -> Integer.compare(a.when.start(), b.when.start()));
+    return occurrences;
+  }
+
+  /**
+   * Returns the position of the first event that starts at or after {@code minute}.
+   */
+  private int firstStartingAtOrAfter(int minute) {
+    int low = 0;
+    int high = starts.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (starts[middle] < minute) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the first position at or after {@code from} of an event that ends after
+   * {@code minute}, or the number of events if there is none.
+   */
+  private int firstEndingAfter(int from, int minute) {
+    return firstEndingAfter(1, 0, leaves, from, minute);
+  }
+
+  /** Searches the subtree at {@code node}, which covers the positions {@code [low, high)}. */
+  private int firstEndingAfter(int node, int low, int high, int from, int minute) {
+    if (high <= from || latestEnds[node] <= minute) {
+      return starts.length;
+    }
+    if (high - low == 1) {
+      return low;
+    }
+    int middle = (low + high) >>> 1;
+    int found = firstEndingAfter(2 * node, low, middle, from, minute);
+    return found < starts.length ? found : firstEndingAfter(2 * node + 1, middle, high, from,
+        minute);
+  }
+
+  private static long hash(Event event) {
+    long hash = event.getTitle().hashCode();
+    hash = 31 * hash + event.getWhen().start();
+    hash = 31 * hash + event.getWhen().duration();
+    hash = 31 * hash + event.getAttendees().hashCode();
+    return 31 * hash + Objects.hashCode(event.getRecurrence());
+  }
+
+  /** One occurrence of a recurring event. */
+  private static final class Occurrence {
+    private final Event series;
+    private final TimeRange when;
+
+    Occurrence(Event series, TimeRange when) {
+      this.series = series;
+      this.when = when;
+    }
+  }
+
+  /** One page of events and where the next page starts. Pages are considered read-only. */
+  public static final class Page {
+    /** The next cursor of the last page. */
+    public static final int NO_CURSOR = -1;
+
+    private final List<Event> events;
+    private final int nextCursor;
+
+    private Page(List<Event> events, int nextCursor) {
+      this.events = Collections.unmodifiableList(events);
+      this.nextCursor = nextCursor;
+    }
+
+    /**
+     * Returns the events on this page, in start-time order.
+     */
+    public List<Event> getEvents() {
+      return events;
+    }
+
+    /**
+     * Returns the cursor of the next page, or {@link #NO_CURSOR} if this is the last page.
+     */
+    public int getNextCursor() {
+      return nextCursor;
+    }
+  }
+}
@@ -23,9 +23,225 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 public final class FindMeetingQuery {
+  /**
+   * The algorithms a {@code FindMeetingQuery} can use to answer a request. All modes return the
+   * same meeting times. Requests with working hours or a buffer are always answered with
+   * {@link #SWEEP} or {@link #PARALLEL}, since only those apply the constraint masks, and
+   * {@link #SCAN} hands calendars with recurring events to {@link #SWEEP}.
+   */
+  public enum Mode {
+    /** Splices each attendee's free list for every event, then intersects attendees pairwise. */
+    SCAN,
+    /** Sorts the relevant busy intervals once and sweeps over them. See SweepLineScheduler. */
+    SWEEP,
+    /** Paints busy minutes into per-day bitsets. See BitmapScheduler. */
+    BITMAP,
+    /** Splits many required attendees across a fork-join pool. See ParallelScheduler. */
+    PARALLEL
+  }
+
+  private final Mode mode;
+
+  // Where query and phase latencies are recorded, or null to not record them.
+  private final QueryMetrics metrics;
+
+  /**
+   * Creates a query that uses {@link Mode#SCAN}.
+   */
+  public FindMeetingQuery() {
+    this(Mode.SCAN);
+  }
+
+  /**
+   * Creates a query that uses the given algorithm.
+   *
+   * @param mode The algorithm used to find meeting times. Must be non-null.
+   */
+  public FindMeetingQuery(Mode mode) {
+    this(mode, null);
+  }
+
+  /**
+   * Creates a query that uses the given algorithm and records how long each query and each of its
+   * phases take.
+   *
+   * @param mode The algorithm used to find meeting times. Must be non-null.
+   * @param metrics Where latencies are recorded, or null to not record them.
+   */
+  public FindMeetingQuery(Mode mode, QueryMetrics metrics) {
+    if (mode == null) {
+      throw new IllegalArgumentException("mode cannot be null");
+    }
+
+    this.mode = mode;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the algorithm this query uses.
+   */
+  public Mode getMode() {
+    return mode;
+  }
+
+  /**
+   * Answers {@code request} by scanning {@code events}. {@link Mode#PARALLEL} needs per-attendee
+   * busy times, so it is answered with {@link Mode#SWEEP} here.
+   */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    long start = startTimer();
+    if (metrics != null) {
+      metrics.addEventsScanned(events.size());
+    }
+    return stopTimer(start, queryEvents(events, request));
+  }
+
+  /**
+   * Answers {@code request} from the busy times in {@code index}, touching only the attendees the
+   * request names. {@link Mode#SCAN} works on raw events, so it is answered with
+   * {@link Mode#SWEEP} here.
+   */
+  public Collection<TimeRange> query(BusyTimes index, MeetingRequest request) {
+    long start = startTimer();
+    Collection<TimeRange> answer;
+    switch (modeFor(request)) {
+      case BITMAP:
+        answer = new BitmapScheduler(metrics).query(index, request);
+        break;
+      case PARALLEL:
+        answer = new ParallelScheduler(metrics).query(index, request);
+        break;
+      default:
+        answer = new SweepLineScheduler(metrics).query(index, request);
+    }
+    return stopTimer(start, answer);
+  }
+
+  /**
+   * Answers {@code request} over {@code horizon}, which may span many days. The events in
+   * {@code index} and the returned times use the same time axis as {@code horizon}, normally epoch
+   * minutes (see {@link Horizon}). Only the busy times inside the horizon are read, so a two-week
+   * search costs about as much as the events in those two weeks. The per-day {@link Mode#BITMAP}
+   * cannot span days, so every mode other than {@link Mode#PARALLEL} uses {@link Mode#SWEEP} here.
+   */
+  public Collection<TimeRange> query(
+      BusyTimes index, MeetingRequest request, TimeRange horizon) {
+    long start = startTimer();
+    if (mode == Mode.PARALLEL) {
+      return stopTimer(start, new ParallelScheduler(metrics).query(index, request, horizon));
+    }
+    return stopTimer(start, new SweepLineScheduler(metrics).query(index, request, horizon));
+  }
+
+  /**
+   * Answers {@code request} over {@code horizon} like
+   * {@link #query(BusyTimes, MeetingRequest, TimeRange)}, but only returns times when at least one
+   * room in {@code rooms} that seats {@link MeetingRequest#getRoomCapacity()} people is free too.
+   * Different rooms can make overlapping windows work; once a time is picked,
+   * {@link RoomIndex#findRoom} says which room to book. Rooms are matched with {@link Mode#SWEEP}
+   * in every mode.
+   */
+  public Collection<TimeRange> query(
+      BusyTimes index, RoomIndex rooms, MeetingRequest request, TimeRange horizon) {
+    long start = startTimer();
+    return stopTimer(start, new SweepLineScheduler(metrics).query(index, rooms, request, horizon));
+  }
+
+  /**
+   * Starts answering every request in {@code requests} on {@code pool} and returns one task per
+   * request, in the same order. All requests share {@code index}. Join the tasks in order to
+   * consume the answers as soon as each one is ready.
+   */
+  public List<ForkJoinTask<Collection<TimeRange>>> submitAll(
+      BusyTimes index, List<MeetingRequest> requests, ForkJoinPool pool) {
+    List<ForkJoinTask<Collection<TimeRange>>> tasks = new ArrayList<>(requests.size());
+    for (MeetingRequest request : requests) {
+      tasks.add(pool.submit(() -> query(index, request)));
+    }
+    return tasks;
+  }
+
+  /**
+   * Answers every request in {@code requests} in parallel on the common fork-join pool. The
+   * answers are returned in the same order as the requests.
+   */
+  public List<Collection<TimeRange>> queryAll(
+      BusyTimes index, List<MeetingRequest> requests) {
+    List<Collection<TimeRange>> answers = new ArrayList<>(requests.size());
+    for (ForkJoinTask<Collection<TimeRange>> task :
+        submitAll(index, requests, ForkJoinPool.commonPool())) {
+      answers.add(task.join());
+    }
+    return answers;
+  }
+
+  private Collection<TimeRange> queryEvents(Collection<Event> events, MeetingRequest request) {
+    Mode effectiveMode = modeFor(request);
+    if (effectiveMode == Mode.SCAN && hasRecurringEvents(events)) {
+      effectiveMode = Mode.SWEEP;
+    }
+    switch (effectiveMode) {
+      case SWEEP:
+      case PARALLEL:
+        return new SweepLineScheduler(metrics).query(events, request);
+      case BITMAP:
+        return new BitmapScheduler(metrics).query(events, request);
+      default:
+        return scan(events, request);
+    }
+  }
+
+  /**
+   * Returns the current time in nanoseconds if latencies are recorded, so that queries without
+   * metrics never read the clock.
+   */
+  private long startTimer() {
+    return QueryMetrics.startTimer(metrics);
+  }
+
+  /**
+   * Records the time since {@code start} against {@code phase} and returns the current time.
+   */
+  private long lap(QueryMetrics.Phase phase, long start) {
+    return QueryMetrics.lap(metrics, phase, start);
+  }
+
+  /**
+   * Records a whole query that started at {@code start} and returned {@code answer}.
+   */
+  private Collection<TimeRange> stopTimer(long start, Collection<TimeRange> answer) {
+    if (metrics != null) {
+      lap(QueryMetrics.Phase.QUERY, start);
+      metrics.addRangesReturned(answer.size());
+    }
+    return answer;
+  }
+
+  private Mode modeFor(MeetingRequest request) {
+    if (request.hasConstraints() && (mode == Mode.SCAN || mode == Mode.BITMAP)) {
+      return Mode.SWEEP;
+    }
+    return mode;
+  }
+
+  private static boolean hasRecurringEvents(Collection<Event> events) {
+    for (Event event : events) {
+      if (event.getRecurrence() != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * The original scan, kept as it was so that it stays the baseline the other modes are measured
+   * and tested against. Only the timers around its phases were added.
+   */
+  private Collection<TimeRange> scan(Collection<Event> events, MeetingRequest request) {
     ArrayList<TimeRange> meetingTimes = new ArrayList<TimeRange>();
     // If there are no mandatory attendees, the whole day is free for optional
     if (request.getAttendees().isEmpty()) {
@@ -36,11 +252,14 @@ public final class FindMeetingQuery {
       return Arrays.asList();
     }
 
+    long phaseStart = startTimer();
     Map<String, ArrayList<TimeRange>> schedules = new HashMap<String, ArrayList<TimeRange>>();
     schedules = initSchedules(request, schedules);
+    phaseStart = lap(QueryMetrics.Phase.INIT_SCHEDULES, phaseStart);
 
     // Update each attendee's schedule based on events
     scheduleEvents(events, schedules);
+    phaseStart = lap(QueryMetrics.Phase.SCHEDULE_EVENTS, phaseStart);
 
     // Takes into consideration all attendees to find free slots
     boolean firstFlag = true;
@@ -69,6 +288,7 @@ public final class FindMeetingQuery {
       }
       optionalMeetingTimesToAdd.clear();
     }
+    phaseStart = lap(QueryMetrics.Phase.DETERMINE_AVAILABLE_TIME, phaseStart);
     // If only one optional can attend, return that slot
     if (optionalFrees.size() == 1) {
       return optionalFrees.values().iterator().next();
@@ -77,6 +297,7 @@ public final class FindMeetingQuery {
     // Find slots where the most optionals can attend
     Map<TimeRange, Integer> freeCounter = new HashMap<TimeRange, Integer>();
     determineFrequency(freeCounter, optionalFrees, request);
+    lap(QueryMetrics.Phase.DETERMINE_FREQUENCY, phaseStart);
     int maxFreeOptionals = 0;
     ArrayList<TimeRange> finalTimes = new ArrayList<TimeRange>();
     for (TimeRange window : freeCounter.keySet()) {
@@ -0,0 +1,69 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Utility methods for searching more than one day at a time. On a multi-day horizon a
+ * {@code TimeRange} is measured in minutes since the Unix epoch rather than minutes since
+ * midnight. Epoch minutes mean the same moment in every time zone, so attendees in different zones
+ * can share one calendar.
+ */
+public final class Horizon {
+  private static final int SECONDS_PER_MINUTE = 60;
+
+  private Horizon() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the number of whole minutes between the Unix epoch and {@code instant}.
+   */
+  public static int toEpochMinute(Instant instant) {
+    return Math.toIntExact(Math.floorDiv(instant.getEpochSecond(), SECONDS_PER_MINUTE));
+  }
+
+  /**
+   * Returns the instant {@code epochMinute} minutes after the Unix epoch.
+   */
+  public static Instant toInstant(int epochMinute) {
+    return Instant.ofEpochSecond((long) epochMinute * SECONDS_PER_MINUTE);
+  }
+
+  /**
+   * Creates a {@code TimeRange} in epoch minutes from {@code start} (inclusive) to {@code end}
+   * (exclusive).
+   */
+  public static TimeRange between(Instant start, Instant end) {
+    return TimeRange.fromStartEnd(toEpochMinute(start), toEpochMinute(end), false);
+  }
+
+  /**
+   * Creates a {@code TimeRange} in epoch minutes covering {@code days} whole days in {@code zone},
+   * starting at midnight of {@code firstDay}. Days that gain or lose an hour to daylight saving
+   * time are covered exactly.
+   */
+  public static TimeRange days(LocalDate firstDay, int days, ZoneId zone) {
+    if (days <= 0) {
+      throw new IllegalArgumentException("days must be positive");
+    }
+
+    return between(firstDay.atStartOfDay(zone).toInstant(),
+        firstDay.plusDays(days).atStartOfDay(zone).toInstant());
+  }
+}
@@ -0,0 +1,344 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A growable list of half-open intervals {@code [start, end)} stored as pairs in a single
+ * {@code int[]}. Sorting, merging, intersecting and subtracting all happen in place, so a query can
+ * combine busy times without allocating a {@link TimeRange} per step. Convert to and from
+ * {@code TimeRange} only at API boundaries.
+ *
+ * <p>Intersect and subtract expect both buffers to be merged (sorted and disjoint). Buffers are not
+ * thread-safe.
+ */
+public final class IntervalBuffer {
+  // Up to this many intervals, insertion sort beats heapsort.
+  private static final int INSERTION_SORT_THRESHOLD = 32;
+
+  // Interleaved start/end pairs: interval i is [bounds[2 * i], bounds[2 * i + 1]).
+  private int[] bounds;
+  private int size;
+
+  // Reused as the output of intersect and subtract, then swapped with bounds.
+  private int[] scratch = new int[0];
+
+  /**
+   * Creates an empty buffer.
+   */
+  public IntervalBuffer() {
+    this(8);
+  }
+
+  /**
+   * Creates an empty buffer with room for {@code capacity} intervals before it has to grow.
+   */
+  public IntervalBuffer(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity cannot be negative");
+    }
+
+    bounds = new int[2 * capacity];
+  }
+
+  /**
+   * Creates a buffer holding {@code ranges}, in iteration order.
+   */
+  public static IntervalBuffer of(Collection<TimeRange> ranges) {
+    IntervalBuffer buffer = new IntervalBuffer(ranges.size());
+    for (TimeRange range : ranges) {
+      buffer.add(range);
+    }
+    return buffer;
+  }
+
+  /**
+   * Returns the number of intervals in the buffer.
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns the start of interval {@code i}.
+   */
+  public int start(int i) {
+    checkIndex(i);
+    return bounds[2 * i];
+  }
+
+  /**
+   * Returns the exclusive end of interval {@code i}.
+   */
+  public int end(int i) {
+    checkIndex(i);
+    return bounds[2 * i + 1];
+  }
+
+  /**
+   * Appends {@code [start, end)}. Empty intervals are ignored.
+   */
+  public IntervalBuffer add(int start, int end) {
+    if (end <= start) {
+      return this;
+    }
+    if (2 * size == bounds.length) {
+      bounds = Arrays.copyOf(bounds, Math.max(8, 4 * size));
+    }
+    bounds[2 * size] = start;
+    bounds[2 * size + 1] = end;
+    size++;
+    return this;
+  }
+
+  /**
+   * Appends {@code range}. Empty ranges are ignored.
+   */
+  public IntervalBuffer add(TimeRange range) {
+    return add(range.start(), range.end());
+  }
+
+  /**
+   * Removes every interval.
+   */
+  public IntervalBuffer clear() {
+    size = 0;
+    return this;
+  }
+
+  /**
+   * Sorts the intervals by start, then by end. Runs in place in O(n log n) time.
+   */
+  public IntervalBuffer sort() {
+    if (size <= INSERTION_SORT_THRESHOLD) {
+      for (int i = 1; i < size; i++) {
+        for (int j = i; j > 0 && compare(j - 1, j) > 0; j--) {
+          swap(j - 1, j);
+        }
+      }
+      return this;
+    }
+
+    // Heapsort needs no extra memory and does not slow down on runs of equal intervals.
+    for (int i = size / 2 - 1; i >= 0; i--) {
+      siftDown(i, size);
+    }
+    for (int end = size - 1; end > 0; end--) {
+      swap(0, end);
+      siftDown(0, end);
+    }
+    return this;
+  }
+
+  /**
+   * Sorts the intervals and combines the ones that overlap or touch, leaving them disjoint.
+   */
+  public IntervalBuffer merge() {
+    sort();
+    int merged = 0;
+    for (int i = 0; i < size; i++) {
+      int start = bounds[2 * i];
+      int end = bounds[2 * i + 1];
+      if (merged > 0 && bounds[2 * merged - 1] >= start) {
+        bounds[2 * merged - 1] = Math.max(bounds[2 * merged - 1], end);
+      } else {
+        bounds[2 * merged] = start;
+        bounds[2 * merged + 1] = end;
+        merged++;
+      }
+    }
+    size = merged;
+    return this;
+  }
+
+  /**
+   * Keeps only the time covered by both this buffer and {@code other}. Both must be merged.
+   */
+  public IntervalBuffer intersect(IntervalBuffer other) {
+    // Each step emits at most one interval and moves past an interval of one of the inputs.
+    int[] result = scratch(size + other.size);
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < size && j < other.size) {
+      int start = Math.max(bounds[2 * i], other.bounds[2 * j]);
+      int end = Math.min(bounds[2 * i + 1], other.bounds[2 * j + 1]);
+      if (start < end) {
+        result[2 * count] = start;
+        result[2 * count + 1] = end;
+        count++;
+      }
+      if (bounds[2 * i + 1] < other.bounds[2 * j + 1]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return swap(result, count);
+  }
+
+  /**
+   * Removes the time covered by {@code other}. Both must be merged.
+   */
+  public IntervalBuffer subtract(IntervalBuffer other) {
+    // Each interval of other can split at most one interval of this buffer in two.
+    int[] result = scratch(size + other.size);
+    int count = 0;
+    int j = 0;
+    for (int i = 0; i < size; i++) {
+      int start = bounds[2 * i];
+      int end = bounds[2 * i + 1];
+      while (j < other.size && other.bounds[2 * j + 1] <= start) {
+        j++;
+      }
+      int k = j;
+      while (k < other.size && other.bounds[2 * k] < end) {
+        if (other.bounds[2 * k] > start) {
+          result[2 * count] = start;
+          result[2 * count + 1] = other.bounds[2 * k];
+          count++;
+        }
+        start = Math.max(start, other.bounds[2 * k + 1]);
+        k++;
+      }
+      if (start < end) {
+        result[2 * count] = start;
+        result[2 * count + 1] = end;
+        count++;
+      }
+    }
+    return swap(result, count);
+  }
+
+  /**
+   * Replaces the intervals with the gaps between them that fall inside {@code [from, to)}. The
+   * buffer must be merged.
+   */
+  public IntervalBuffer complement(int from, int to) {
+    // Gap k ends where interval k starts, so it can be written over interval k once that interval
+    // has been read. Only the gap after the last interval may need room to grow.
+    int count = 0;
+    int cursor = from;
+    for (int i = 0; i < size && cursor < to; i++) {
+      int start = bounds[2 * i];
+      int end = bounds[2 * i + 1];
+      if (start > cursor) {
+        bounds[2 * count] = cursor;
+        bounds[2 * count + 1] = Math.min(start, to);
+        count++;
+      }
+      cursor = Math.max(cursor, end);
+    }
+    size = count;
+    return add(cursor, to);
+  }
+
+  /**
+   * Removes the intervals shorter than {@code minDuration}, keeping the rest in order.
+   */
+  public IntervalBuffer removeShorterThan(long minDuration) {
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      if ((long) bounds[2 * i + 1] - bounds[2 * i] >= minDuration) {
+        bounds[2 * kept] = bounds[2 * i];
+        bounds[2 * kept + 1] = bounds[2 * i + 1];
+        kept++;
+      }
+    }
+    size = kept;
+    return this;
+  }
+
+  /**
+   * Returns the intervals as {@code TimeRange}s, in buffer order.
+   */
+  public List<TimeRange> toTimeRanges() {
+    List<TimeRange> ranges = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      ranges.add(TimeRange.fromStartEnd(bounds[2 * i], bounds[2 * i + 1], false));
+    }
+    return ranges;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("[");
+    for (int i = 0; i < size; i++) {
+      if (i > 0) {
+        builder.append(", ");
+      }
+      builder.append('[').append(bounds[2 * i]).append(", ").append(bounds[2 * i + 1]).append(')');
+    }
+    return builder.append(']').toString();
+  }
+
+  private void checkIndex(int i) {
+    if (i < 0 || i >= size) {
+      throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+    }
+  }
+
+  private int[] scratch(int capacity) {
+    if (scratch.length < 2 * capacity) {
+      scratch = new int[2 * capacity];
+    }
+    return scratch;
+  }
+
+  private IntervalBuffer swap(int[] result, int count) {
+    scratch = bounds;
+    bounds = result;
+    size = count;
+    return this;
+  }
+
+  /** Moves interval {@code i} down the max-heap held in the first {@code heapSize} intervals. */
+  private void siftDown(int i, int heapSize) {
+    while (true) {
+      int largest = i;
+      int left = 2 * i + 1;
+      int right = left + 1;
+      if (left < heapSize && compare(left, largest) > 0) {
+        largest = left;
+      }
+      if (right < heapSize && compare(right, largest) > 0) {
+        largest = right;
+      }
+      if (largest == i) {
+        return;
+      }
+      swap(i, largest);
+      i = largest;
+    }
+  }
+
+  private int compare(int a, int b) {
+    int byStart = Integer.compare(bounds[2 * a], bounds[2 * b]);
+    return byStart != 0 ? byStart : Integer.compare(bounds[2 * a + 1], bounds[2 * b + 1]);
+  }
+
+  private void swap(int a, int b) {
+    int start = bounds[2 * a];
+    int end = bounds[2 * a + 1];
+    bounds[2 * a] = bounds[2 * b];
+    bounds[2 * a + 1] = bounds[2 * b + 1];
+    bounds[2 * b] = start;
+    bounds[2 * b + 1] = end;
+  }
+}
@@ -0,0 +1,106 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts latencies in buckets that grow with the value, in the style of HdrHistogram: every power
+ * of two is split into {@value #SUB_BUCKETS} equal buckets, so any recorded value can be read back
+ * to within about 3%, from nanoseconds to hours, in a fixed 15KB of counters.
+ *
+ * <p>Recording is lock-free and allocation-free, so histograms can sit on the query path.
+ * Percentiles read while values are being recorded may be off by the values recorded meanwhile.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder count = new LongAdder();
+  private final LongAdder sum = new LongAdder();
+
+  /**
+   * Records one latency of {@code nanos} nanoseconds. Negative values are recorded as 0.
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    counts.incrementAndGet(bucketOf(value));
+    count.increment();
+    sum.add(value);
+  }
+
+  /**
+   * Returns how many latencies were recorded.
+   */
+  public long getCount() {
+    return count.sum();
+  }
+
+  /**
+   * Returns the sum of the recorded latencies in nanoseconds.
+   */
+  public long getSum() {
+    return sum.sum();
+  }
+
+  /**
+   * Returns the latency in nanoseconds that {@code percentile} percent of the recorded latencies
+   * are at or below, rounded up to the end of its bucket. Returns 0 if nothing was recorded.
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100");
+    }
+
+    long total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      total += counts.get(i);
+    }
+    long target = Math.max(1, (long) Math.ceil(percentile / 100 * total));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= target) {
+        return highestValueIn(i);
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Returns the bucket holding {@code value}. Values below {@code 2 * SUB_BUCKETS} get a bucket
+   * each; above that, each power of two gets {@code SUB_BUCKETS} buckets.
+   */
+  static int bucketOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+  }
+
+  /** Returns the largest value that lands in bucket {@code bucket}. */
+  static long highestValueIn(int bucket) {
+    if (bucket < 2 * SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long lowest = (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+}
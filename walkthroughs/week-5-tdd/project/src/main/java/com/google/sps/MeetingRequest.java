@@ -18,7 +18,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 public final class MeetingRequest {
   /////////////////////////////////////////////
@@ -38,6 +41,20 @@ public final class MeetingRequest {
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // When each attendee can meet, on the same time axis as the query. Attendees without an entry
+  // can meet at any time. Created on first use, since requests read from JSON skip initializers.
+  private Map<String, List<TimeRange>> working_hours;
+
+  // When the organizer would rather meet. These only change how meeting times are ranked. Created
+  // on first use like working_hours.
+  private List<TimeRange> preferred_windows;
+
+  // The minutes every attendee needs free before and after the meeting.
+  private long buffer;
+
+  // How many people the meeting room must seat, when the meeting is matched against rooms.
+  private int room_capacity;
+
   public MeetingRequest(Collection<String> attendees, long duration) {
     this.duration = duration;
     this.attendees.addAll(attendees);
@@ -72,4 +89,105 @@ public final class MeetingRequest {
   public long getDuration() {
     return duration;
   }
+
+  /**
+   * Limits the times {@code attendee} can meet to {@code hours}, for example 9:00 to 17:00.
+   */
+  public void setWorkingHours(String attendee, Collection<TimeRange> hours) {
+    if (working_hours == null) {
+      working_hours = new HashMap<>();
+    }
+    working_hours.put(attendee, new ArrayList<>(hours));
+  }
+
+  /**
+   * Returns a read-only map from each attendee with working hours to the times they can meet.
+   */
+  public Map<String, List<TimeRange>> getWorkingHours() {
+    if (working_hours == null) {
+      return Collections.emptyMap();
+    }
+    return Collections.unmodifiableMap(working_hours);
+  }
+
+  /**
+   * Adds a window the organizer would rather meet in.
+   */
+  public void addPreferredWindow(TimeRange window) {
+    if (preferred_windows == null) {
+      preferred_windows = new ArrayList<>();
+    }
+    preferred_windows.add(window);
+  }
+
+  /**
+   * Returns a read-only list of the windows the organizer would rather meet in.
+   */
+  public List<TimeRange> getPreferredWindows() {
+    if (preferred_windows == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(preferred_windows);
+  }
+
+  /**
+   * Sets how many minutes every attendee needs free before and after the meeting.
+   */
+  public void setBuffer(long buffer) {
+    if (buffer < 0) {
+      throw new IllegalArgumentException("buffer cannot be negative");
+    }
+
+    this.buffer = buffer;
+  }
+
+  /**
+   * Returns how many minutes every attendee needs free before and after the meeting.
+   */
+  public long getBuffer() {
+    return buffer;
+  }
+
+  /**
+   * Sets how many people the meeting room must seat. This only matters when the meeting is matched
+   * against a {@link RoomIndex}; any room will do at the default of 0.
+   */
+  public void setRoomCapacity(int roomCapacity) {
+    if (roomCapacity < 0) {
+      throw new IllegalArgumentException("room capacity cannot be negative");
+    }
+
+    this.room_capacity = roomCapacity;
+  }
+
+  /**
+   * Returns how many people the meeting room must seat.
+   */
+  public int getRoomCapacity() {
+    return room_capacity;
+  }
+
+  /**
+   * Checks the fields the setters would have checked. Requests read from JSON get their fields
+   * set directly, so call this before answering one.
+   *
+   * @throws IllegalArgumentException if the buffer or the room capacity is negative
+   */
+  public void validate() {
+    if (buffer < 0) {
+      throw new IllegalArgumentException("buffer cannot be negative");
+    }
+
+    if (room_capacity < 0) {
+      throw new IllegalArgumentException("room capacity cannot be negative");
+    }
+  }
+
+  /**
+   * Returns whether the request has working hours or a buffer, which rule out times when the
+   * attendees are not busy.
+   */
+  public boolean hasConstraints() {
+    return buffer > 0 || !getWorkingHours().isEmpty();
+  }
 }
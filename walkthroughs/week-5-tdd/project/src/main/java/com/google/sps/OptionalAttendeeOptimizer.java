@@ -0,0 +1,186 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Picks the meeting windows that the largest number of optional attendees can attend.
+ *
+ * <p>An optional attendee can join a meeting starting at minute {@code t} if they are free for all
+ * of {@code [t, t + duration)}. Each attendee therefore contributes a handful of ranges of valid
+ * start times, and the best windows are the start times covered by the most ranges. Coverage is
+ * counted with a single sweep over the sorted range boundaries, so a request costs
+ * O((events + optional attendees) log n) no matter how many optional attendees share free time.
+ */
+public final class OptionalAttendeeOptimizer {
+  private OptionalAttendeeOptimizer() {
+    // Disallow instances.
+  }
+
+  /**
+   * Returns the sub-windows of {@code meetingTimes} where the most optional attendees can attend a
+   * meeting of {@code duration} minutes, in ascending order. Returns {@code meetingTimes} itself if
+   * no optional attendee fits anywhere.
+   *
+   * @param meetingTimes The windows every required attendee can attend, sorted and disjoint.
+   * @param optionalBusy The busy ranges of each optional attendee, each list sorted by start.
+   * @param duration The length of the meeting in minutes.
+   */
+  public static List<TimeRange> mostAttendedWindows(List<TimeRange> meetingTimes,
+      Collection<? extends List<TimeRange>> optionalBusy, long duration) {
+    List<TimeRange> windows =
+        mostAttended(IntervalBuffer.of(meetingTimes), optionalBusy, duration);
+    return windows == null ? meetingTimes : windows;
+  }
+
+  /**
+   * Like {@link #mostAttendedWindows(List, Collection, long)}, but reads the required windows
+   * straight from {@code meetingTimes} so they are only turned into {@code TimeRange}s if no
+   * optional attendee fits.
+   */
+  public static List<TimeRange> mostAttendedWindows(IntervalBuffer meetingTimes,
+      Collection<? extends List<TimeRange>> optionalBusy, long duration) {
+    List<TimeRange> windows = mostAttended(meetingTimes, optionalBusy, duration);
+    return windows == null ? meetingTimes.toTimeRanges() : windows;
+  }
+
+  /**
+   * Returns the windows the most optional attendees can attend, or {@code null} if no optional
+   * attendee fits anywhere.
+   */
+  private static List<TimeRange> mostAttended(IntervalBuffer meetingTimes,
+      Collection<? extends List<TimeRange>> optionalBusy, long duration) {
+    // The ranges of start times that fit a meeting inside the required attendees' windows.
+    int[] requiredStarts = new int[meetingTimes.size()];
+    int[] requiredEnds = new int[meetingTimes.size()];
+    int required = 0;
+    for (int i = 0; i < meetingTimes.size(); i++) {
+      if (meetingTimes.end(i) - meetingTimes.start(i) >= duration) {
+        requiredStarts[required] = meetingTimes.start(i);
+        requiredEnds[required] = lastStart(meetingTimes.end(i), duration);
+        required++;
+      }
+    }
+
+    if (required == 0) {
+      return null;
+    }
+
+    // Every range of valid start times becomes an enter boundary and a leave boundary. Free time
+    // outside of the required windows never counts, so it is enough to look between the first
+    // and last required window.
+    int first = meetingTimes.start(0);
+    int last = meetingTimes.end(meetingTimes.size() - 1);
+    IntList enters = new IntList();
+    IntList leaves = new IntList();
+    for (List<TimeRange> busy : optionalBusy) {
+      int cursor = first;
+      for (TimeRange range : busy) {
+        if (range.start() > cursor) {
+          addStartRanges(cursor, Math.min(range.start(), last), duration, requiredStarts,
+              requiredEnds, required, enters, leaves);
+        }
+        cursor = Math.max(cursor, range.end());
+      }
+      addStartRanges(
+          cursor, last, duration, requiredStarts, requiredEnds, required, enters, leaves);
+    }
+    if (enters.size == 0) {
+      return null;
+    }
+    int[] enterPoints = enters.sorted();
+    int[] leavePoints = leaves.sorted();
+
+    // Sweep the boundaries. Between two consecutive boundaries the group of optional attendees who
+    // can attend is fixed; across a boundary it always changes, so those windows stay separate.
+    List<TimeRange> windows = new ArrayList<>();
+    int maxCount = 0;
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < enterPoints.length) {
+      int point = Math.min(enterPoints[i], leavePoints[j]);
+      while (i < enterPoints.length && enterPoints[i] == point) {
+        count++;
+        i++;
+      }
+      while (j < leavePoints.length && leavePoints[j] == point) {
+        count--;
+        j++;
+      }
+      if (count == 0 || count < maxCount) {
+        continue;
+      }
+      if (count > maxCount) {
+        maxCount = count;
+        windows.clear();
+      }
+      // While anyone can attend there is always a pending leave boundary.
+      int next = i < enterPoints.length ? Math.min(enterPoints[i], leavePoints[j]) : leavePoints[j];
+      windows.add(TimeRange.fromStartEnd(point, next - 1 + (int) duration, false));
+    }
+    return windows;
+  }
+
+  /**
+   * Adds the start times that fit a meeting inside both the free window {@code [start, end)} and
+   * one of the required windows. Required windows are located with a binary search so each free
+   * window only touches the required windows it overlaps.
+   */
+  private static void addStartRanges(int start, int end, long duration, int[] requiredStarts,
+      int[] requiredEnds, int required, IntList enters, IntList leaves) {
+    if (end - start < duration) {
+      return;
+    }
+    int last = lastStart(end, duration);
+    int index = Arrays.binarySearch(requiredEnds, 0, required, start);
+    // Skip the required window that stops accepting starts exactly where this window begins.
+    index = index >= 0 ? index + 1 : -index - 1;
+    for (; index < required && requiredStarts[index] < last; index++) {
+      enters.add(Math.max(start, requiredStarts[index]));
+      leaves.add(Math.min(last, requiredEnds[index]));
+    }
+  }
+
+  /**
+   * Returns the exclusive bound on start times for a meeting that must end by {@code end}.
+   */
+  private static int lastStart(int end, long duration) {
+    return end - (int) duration + 1;
+  }
+
+  /** A growable list of primitive ints, so boundaries are never boxed. */
+  private static final class IntList {
+    private int[] values = new int[16];
+    private int size;
+
+    void add(int value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    int[] sorted() {
+      int[] copy = Arrays.copyOf(values, size);
+      Arrays.sort(copy);
+      return copy;
+    }
+  }
+}
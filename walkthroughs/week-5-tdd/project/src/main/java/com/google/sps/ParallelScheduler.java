@@ -0,0 +1,183 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds meeting times for requests with many required attendees by splitting the attendees into
+ * groups and working out each group's common free windows on a fork-join pool. Intersecting free
+ * windows is associative, so the groups are combined pairwise up a tree, and the combining itself
+ * runs in parallel.
+ *
+ * <p>Requests with at most {@code threshold} required attendees are answered on the calling thread
+ * exactly like {@link SweepLineScheduler}, since splitting them costs more than it saves. Windows
+ * shorter than the meeting are dropped at every level of the tree, as intersecting them with more
+ * attendees can only make them shorter.
+ */
+public final class ParallelScheduler {
+  /** How many required attendees each task handles before splitting, unless configured. */
+  public static final int DEFAULT_THRESHOLD = 32;
+
+  private final ForkJoinPool pool;
+  private final int threshold;
+
+  // Where phase latencies and busy ranges read are recorded, or null to not record them.
+  private final QueryMetrics metrics;
+
+  /**
+   * Creates a scheduler that runs on the common fork-join pool with the default threshold.
+   */
+  public ParallelScheduler() {
+    this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Creates a scheduler that runs on the common fork-join pool with the default threshold and
+   * records how long each phase of a query takes in {@code metrics}, or nothing if it is null.
+   * Busy times are read inside the tasks, so they are timed as part of
+   * {@link QueryMetrics.Phase#DETERMINE_AVAILABLE_TIME}.
+   */
+  public ParallelScheduler(QueryMetrics metrics) {
+    this(ForkJoinPool.commonPool(), DEFAULT_THRESHOLD, metrics);
+  }
+
+  /**
+   * Creates a scheduler with a custom pool and threshold.
+   *
+   * @param pool The pool the attendee groups are processed on. Must be non-null.
+   * @param threshold The most required attendees one task handles on its own. Requests with no
+   *     more attendees than this never leave the calling thread. Must be positive.
+   */
+  public ParallelScheduler(ForkJoinPool pool, int threshold) {
+    this(pool, threshold, null);
+  }
+
+  private ParallelScheduler(ForkJoinPool pool, int threshold, QueryMetrics metrics) {
+    if (pool == null) {
+      throw new IllegalArgumentException("pool cannot be null");
+    }
+
+    if (threshold <= 0) {
+      throw new IllegalArgumentException("threshold must be positive");
+    }
+
+    this.pool = pool;
+    this.threshold = threshold;
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the most required attendees one task handles on its own.
+   */
+  public int getThreshold() {
+    return threshold;
+  }
+
+  /**
+   * Answers {@code request} from the busy times in {@code index}.
+   */
+  public Collection<TimeRange> query(BusyTimes index, MeetingRequest request) {
+    return query(index, request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Answers {@code request} for any span of time. See
+   * {@link SweepLineScheduler#query(BusyTimes, MeetingRequest, TimeRange)}.
+   */
+  public Collection<TimeRange> query(BusyTimes index, MeetingRequest request, TimeRange horizon) {
+    if (request.getDuration() > horizon.duration()) {
+      return Arrays.asList();
+    }
+
+    long phaseStart = QueryMetrics.startTimer(metrics);
+    int[] ids = index.getAttendeeDictionary().idsOf(request.getAttendees());
+    phaseStart = QueryMetrics.lap(metrics, QueryMetrics.Phase.INIT_SCHEDULES, phaseStart);
+
+    FreeWindowsTask task =
+        new FreeWindowsTask(index, ids, 0, ids.length, horizon, request, threshold, metrics);
+    IntervalBuffer meetingTimes = ConstraintMask.restrict(
+        ids.length <= threshold ? task.compute() : pool.invoke(task), request);
+    phaseStart =
+        QueryMetrics.lap(metrics, QueryMetrics.Phase.DETERMINE_AVAILABLE_TIME, phaseStart);
+    if (request.getOptionalAttendees().isEmpty() || meetingTimes.size() == 0) {
+      return meetingTimes.toTimeRanges();
+    }
+
+    List<List<TimeRange>> optionalBusy =
+        SweepLineScheduler.optionalBusyTimes(index, request, horizon);
+    List<TimeRange> answer = OptionalAttendeeOptimizer.mostAttendedWindows(
+        meetingTimes, optionalBusy, request.getDuration());
+    if (metrics != null) {
+      metrics.addBusyRangesRead(SweepLineScheduler.size(optionalBusy));
+    }
+    QueryMetrics.lap(metrics, QueryMetrics.Phase.DETERMINE_FREQUENCY, phaseStart);
+    return answer;
+  }
+
+  /** Finds the windows when the attendees {@code ids[from, to)} are all free. */
+  private static final class FreeWindowsTask extends RecursiveTask<IntervalBuffer> {
+    private final BusyTimes index;
+    private final int[] ids;
+    private final int from;
+    private final int to;
+    private final TimeRange horizon;
+    private final MeetingRequest request;
+    private final int threshold;
+    private final QueryMetrics metrics;
+
+    FreeWindowsTask(BusyTimes index, int[] ids, int from, int to, TimeRange horizon,
+        MeetingRequest request, int threshold, QueryMetrics metrics) {
+      this.index = index;
+      this.ids = ids;
+      this.from = from;
+      this.to = to;
+      this.horizon = horizon;
+      this.request = request;
+      this.threshold = threshold;
+      this.metrics = metrics;
+    }
+
+    @Override
+    protected IntervalBuffer compute() {
+      if (to - from <= threshold) {
+        TimeRange widened = ConstraintMask.widen(horizon, request.getBuffer());
+        List<List<TimeRange>> busy = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+          busy.add(index.getBusyTimes(ids[i], widened));
+        }
+        if (metrics != null) {
+          metrics.addBusyRangesRead(SweepLineScheduler.size(busy));
+        }
+        return SweepLineScheduler.freeWindows(
+            busy, horizon, request.getDuration(), request.getBuffer());
+      }
+
+      int middle = (from + to) >>> 1;
+      FreeWindowsTask left =
+          new FreeWindowsTask(index, ids, from, middle, horizon, request, threshold, metrics);
+      FreeWindowsTask right =
+          new FreeWindowsTask(index, ids, middle, to, horizon, request, threshold, metrics);
+      left.fork();
+      IntervalBuffer free = right.compute();
+      return left.join().intersect(free).removeShorterThan(request.getDuration());
+    }
+  }
+}
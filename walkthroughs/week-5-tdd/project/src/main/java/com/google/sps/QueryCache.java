@@ -0,0 +1,248 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Remembers the answers to recent meeting requests so that re-issuing the same request does not
+ * run the query again.
+ *
+ * <p>Requests are keyed on their required attendees, optional attendees, duration, working hours
+ * and buffer, so the order attendees were added in does not matter. Preferred windows do not
+ * change the answer and are left out. Attendees are keyed by their id in the index's
+ * {@link AttendeeDictionary}, so a lookup hashes each name once and compares ints from then on.
+ * Attendees the index has never seen all get {@link AttendeeDictionary#NO_ID}, so the key also
+ * keeps their names: they have no events, but the request's working hours can still tell them
+ * apart. Each answer is stamped with the
+ * {@linkplain BusyTimes#getVersion version} of every attendee it involves, and is only
+ * reused while all of those versions are unchanged. A change to anyone else's calendar leaves the
+ * answer cached. When the cache is full the least recently used answer is evicted.
+ *
+ * <p>Caches are safe to use from many threads.
+ */
+public final class QueryCache {
+  private final BusyTimes index;
+  private final FindMeetingQuery findMeetingQuery;
+  private final Map<Key, Answer> answers;
+
+  private long hits;
+  private long misses;
+  private long invalidations;
+  private long evictions;
+
+  /**
+   * Creates a cache of up to {@code capacity} answers from {@code index}.
+   *
+   * @param index The busy times the answers are computed from. Must be non-null.
+   * @param findMeetingQuery The query used to compute answers that are not cached. Must be
+   *     non-null.
+   * @param capacity The most answers kept at once. Must be positive.
+   */
+  public QueryCache(BusyTimes index, FindMeetingQuery findMeetingQuery, int capacity) {
+    if (index == null) {
+      throw new IllegalArgumentException("index cannot be null");
+    }
+
+    if (findMeetingQuery == null) {
+      throw new IllegalArgumentException("findMeetingQuery cannot be null");
+    }
+
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+
+    this.index = index;
+    this.findMeetingQuery = findMeetingQuery;
+    // An access-ordered map keeps the least recently used answer first.
+    this.answers = new LinkedHashMap<Key, Answer>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, Answer> eldest) {
+        if (size() > capacity) {
+          evictions++;
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  /**
+   * Returns the meeting times for {@code request}, from the cache if none of the involved
+   * attendees' calendars changed since it was last answered. The returned collection is
+   * read-only.
+   */
+  public Collection<TimeRange> query(MeetingRequest request) {
+    Key key = new Key(index.getAttendeeDictionary(), request);
+    long[] versions = versions(key);
+    synchronized (this) {
+      Answer answer = answers.get(key);
+      if (answer != null && Arrays.equals(answer.versions, versions)) {
+        hits++;
+        return answer.times;
+      }
+      misses++;
+      if (answer != null) {
+        invalidations++;
+      }
+    }
+
+    // Query outside the lock so that slow misses do not hold up hits. The versions were read
+    // before the query, so if a calendar changes in the meantime the answer is simply recomputed
+    // on the next lookup.
+    Collection<TimeRange> times =
+        Collections.unmodifiableList(new ArrayList<>(findMeetingQuery.query(index, request)));
+    synchronized (this) {
+      answers.put(key, new Answer(times, versions));
+    }
+    return times;
+  }
+
+  /**
+   * Returns how many lookups were answered from the cache.
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Returns how many lookups had to run the query, including invalidated ones.
+   */
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Returns how many lookups found an answer that was out of date because one of its attendees'
+   * calendars changed.
+   */
+  public synchronized long getInvalidations() {
+    return invalidations;
+  }
+
+  /**
+   * Returns how many answers were dropped to make room for newer ones.
+   */
+  public synchronized long getEvictions() {
+    return evictions;
+  }
+
+  /**
+   * Returns the fraction of lookups answered from the cache, or 0 if there were none.
+   */
+  public synchronized double getHitRate() {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0 : (double) hits / lookups;
+  }
+
+  /**
+   * Returns how many answers are cached.
+   */
+  public synchronized int size() {
+    return answers.size();
+  }
+
+  private long[] versions(Key key) {
+    long[] versions = new long[key.attendees.length + key.optionalAttendees.length];
+    int i = 0;
+    for (int id : key.attendees) {
+      versions[i++] = index.getVersion(id);
+    }
+    for (int id : key.optionalAttendees) {
+      versions[i++] = index.getVersion(id);
+    }
+    return versions;
+  }
+
+  private static int[] sortedIds(AttendeeDictionary dictionary, Collection<String> attendees) {
+    int[] ids = dictionary.idsOf(attendees);
+    Arrays.sort(ids);
+    return ids;
+  }
+
+  private static List<String> sortedUnknownNames(
+      AttendeeDictionary dictionary, Collection<String> attendees) {
+    List<String> names = new ArrayList<>();
+    for (String attendee : attendees) {
+      if (dictionary.idOf(attendee) == AttendeeDictionary.NO_ID) {
+        names.add(attendee);
+      }
+    }
+    Collections.sort(names);
+    return names;
+  }
+
+  /** A request with its attendees in a canonical order. */
+  private static final class Key {
+    private final int[] attendees;
+    private final int[] optionalAttendees;
+    private final List<String> unknownAttendees;
+    private final List<String> unknownOptionalAttendees;
+    private final long duration;
+    private final Map<String, List<TimeRange>> workingHours;
+    private final long buffer;
+    private final int hashCode;
+
+    Key(AttendeeDictionary dictionary, MeetingRequest request) {
+      attendees = sortedIds(dictionary, request.getAttendees());
+      optionalAttendees = sortedIds(dictionary, request.getOptionalAttendees());
+      unknownAttendees = sortedUnknownNames(dictionary, request.getAttendees());
+      unknownOptionalAttendees = sortedUnknownNames(dictionary, request.getOptionalAttendees());
+      duration = request.getDuration();
+      workingHours = new HashMap<>(request.getWorkingHours());
+      buffer = request.getBuffer();
+      hashCode = Objects.hash(Arrays.hashCode(attendees), Arrays.hashCode(optionalAttendees),
+          unknownAttendees, unknownOptionalAttendees, duration, workingHours, buffer);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return duration == key.duration && buffer == key.buffer
+          && Arrays.equals(attendees, key.attendees)
+          && Arrays.equals(optionalAttendees, key.optionalAttendees)
+          && unknownAttendees.equals(key.unknownAttendees)
+          && unknownOptionalAttendees.equals(key.unknownOptionalAttendees)
+          && workingHours.equals(key.workingHours);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /** A cached answer and the attendee versions it was computed from, in key order. */
+  private static final class Answer {
+    private final Collection<TimeRange> times;
+    private final long[] versions;
+
+    Answer(Collection<TimeRange> times, long[] versions) {
+      this.times = times;
+      this.versions = versions;
+    }
+  }
+}
@@ -0,0 +1,210 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and counters for the meeting query pipeline, written out in the Prometheus
+ * text format. Each phase of a query and each endpoint gets its own {@link LatencyHistogram}.
+ * Queries over raw events count the events they scan, and queries over an index count the busy
+ * ranges they read instead.
+ *
+ * <p>Everything is recorded without locks or allocation, so one instance can be shared by every
+ * request.
+ */
+public final class QueryMetrics {
+  /** The phases of answering a meeting request that are timed separately. */
+  public enum Phase {
+    /** Reading the request JSON. */
+    PARSE,
+    /** Looking the request up in the query cache, including running the query on a miss. */
+    CACHE,
+    /** Running the meeting engine. */
+    QUERY,
+    /**
+     * Setting up per-attendee state: SCAN's free lists, or the other engines' attendee ids and
+     * buckets.
+     */
+    INIT_SCHEDULES,
+    /**
+     * Collecting the attendees' busy times: SCAN splices events into the free lists, SWEEP and
+     * BITMAP bucket or paint the events, and index queries read the busy times. PARALLEL reads
+     * them inside its tasks, so for it this is part of {@link #DETERMINE_AVAILABLE_TIME}.
+     */
+    SCHEDULE_EVENTS,
+    /** Working out when every required attendee is free. */
+    DETERMINE_AVAILABLE_TIME,
+    /** Narrowing the free windows to the ones the most optional attendees can come to. */
+    DETERMINE_FREQUENCY,
+    /** Writing the response JSON. */
+    WRITE;
+
+    private final String label = name().toLowerCase(Locale.ROOT);
+  }
+
+  // The quantiles reported for every histogram.
+  private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+  private final LatencyHistogram[] phases = new LatencyHistogram[Phase.values().length];
+  private final Map<String, LatencyHistogram> endpoints = new ConcurrentHashMap<>();
+  private final LongAdder eventsScanned = new LongAdder();
+  private final LongAdder busyRangesRead = new LongAdder();
+  private final LongAdder rangesReturned = new LongAdder();
+
+  /**
+   * Creates an empty set of metrics.
+   */
+  public QueryMetrics() {
+    for (int i = 0; i < phases.length; i++) {
+      phases[i] = new LatencyHistogram();
+    }
+  }
+
+  /**
+   * Records that {@code phase} took {@code nanos} nanoseconds.
+   */
+  public void recordPhase(Phase phase, long nanos) {
+    phases[phase.ordinal()].record(nanos);
+  }
+
+  /**
+   * Records that a request to {@code endpoint} took {@code nanos} nanoseconds from start to end.
+   */
+  public void recordRequest(String endpoint, long nanos) {
+    endpoints.computeIfAbsent(endpoint, name -> new LatencyHistogram()).record(nanos);
+  }
+
+  /**
+   * Adds {@code events} to the number of events the engines scanned.
+   */
+  public void addEventsScanned(long events) {
+    eventsScanned.add(events);
+  }
+
+  /**
+   * Adds {@code ranges} to the number of busy ranges the engines read from an index.
+   */
+  public void addBusyRangesRead(long ranges) {
+    busyRangesRead.add(ranges);
+  }
+
+  /**
+   * Adds {@code ranges} to the number of meeting times the engines returned.
+   */
+  public void addRangesReturned(long ranges) {
+    rangesReturned.add(ranges);
+  }
+
+  /**
+   * Returns the histogram of {@code phase}.
+   */
+  public LatencyHistogram getPhase(Phase phase) {
+    return phases[phase.ordinal()];
+  }
+
+  /**
+   * Returns how many events the engines scanned.
+   */
+  public long getEventsScanned() {
+    return eventsScanned.sum();
+  }
+
+  /**
+   * Returns how many busy ranges the engines read from an index.
+   */
+  public long getBusyRangesRead() {
+    return busyRangesRead.sum();
+  }
+
+  /**
+   * Writes every metric to {@code out} in the Prometheus text exposition format, version 0.0.4.
+   * Latencies are reported in seconds, as summaries with quantiles.
+   */
+  public void writePrometheus(Writer out) throws IOException {
+    out.write("# HELP meeting_query_phase_seconds Time spent in each phase of a meeting query.\n");
+    out.write("# TYPE meeting_query_phase_seconds summary\n");
+    for (Phase phase : Phase.values()) {
+      writeSummary(out, "meeting_query_phase_seconds", "phase", phase.label, getPhase(phase));
+    }
+
+    out.write("# HELP http_request_duration_seconds Time spent answering each endpoint.\n");
+    out.write("# TYPE http_request_duration_seconds summary\n");
+    for (Map.Entry<String, LatencyHistogram> endpoint : new TreeMap<>(endpoints).entrySet()) {
+      writeSummary(out, "http_request_duration_seconds", "endpoint", endpoint.getKey(),
+          endpoint.getValue());
+    }
+
+    out.write(
+        "# HELP meeting_query_events_scanned_total Events read by queries over raw events.\n");
+    out.write("# TYPE meeting_query_events_scanned_total counter\n");
+    out.write("meeting_query_events_scanned_total " + eventsScanned.sum() + "\n");
+    out.write(
+        "# HELP meeting_query_busy_ranges_read_total Busy ranges read by queries over an index.\n");
+    out.write("# TYPE meeting_query_busy_ranges_read_total counter\n");
+    out.write("meeting_query_busy_ranges_read_total " + busyRangesRead.sum() + "\n");
+    out.write(
+        "# HELP meeting_query_ranges_returned_total Meeting times returned by the engines.\n");
+    out.write("# TYPE meeting_query_ranges_returned_total counter\n");
+    out.write("meeting_query_ranges_returned_total " + rangesReturned.sum() + "\n");
+  }
+
+  /**
+   * Returns the current time in nanoseconds if {@code metrics} is non-null, so that code without
+   * metrics never reads the clock.
+   */
+  static long startTimer(QueryMetrics metrics) {
+    return metrics == null ? 0 : System.nanoTime();
+  }
+
+  /**
+   * Records the time since {@code start} against {@code phase} in {@code metrics}, if it is
+   * non-null, and returns the current time.
+   */
+  static long lap(QueryMetrics metrics, Phase phase, long start) {
+    if (metrics == null) {
+      return 0;
+    }
+    long now = System.nanoTime();
+    metrics.recordPhase(phase, now - start);
+    return now;
+  }
+
+  private static void writeSummary(Writer out, String name, String labelName, String labelValue,
+      LatencyHistogram histogram) throws IOException {
+    String label = labelName + "=\"" + escape(labelValue) + "\"";
+    for (double quantile : QUANTILES) {
+      out.write(name + "{" + label + ",quantile=\"" + quantile + "\"} "
+          + seconds(histogram.getValueAtPercentile(quantile * 100)) + "\n");
+    }
+    out.write(name + "_sum{" + label + "} " + seconds(histogram.getSum()) + "\n");
+    out.write(name + "_count{" + label + "} " + histogram.getCount() + "\n");
+  }
+
+  private static String seconds(long nanos) {
+    return Double.toString(nanos / 1e9);
+  }
+
+  /** Escapes a label value as the text format requires. */
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+  }
+}
@@ -0,0 +1,70 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Comparator;
+
+/**
+ * A concrete meeting time suggested by {@link SlotRanker}, along with how well it scored.
+ * RankedSlots are considered read-only.
+ */
+public final class RankedSlot {
+  /**
+   * A comparator that puts the best slots first: highest score, then earliest start.
+   */
+  public static final Comparator<RankedSlot> BEST_FIRST = new Comparator<RankedSlot>() {
+    @Override
+    public int compare(RankedSlot a, RankedSlot b) {
+      int byScore = Double.compare(b.score, a.score);
+      return byScore != 0 ? byScore : TimeRange.ORDER_BY_START.compare(a.when, b.when);
+    }
+  };
+
+  private final TimeRange when;
+  private final int optionalAttendees;
+  private final double score;
+
+  RankedSlot(TimeRange when, int optionalAttendees, double score) {
+    this.when = when;
+    this.optionalAttendees = optionalAttendees;
+    this.score = score;
+  }
+
+  /**
+   * Returns the time the meeting would take place.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns how many optional attendees are free for the whole meeting.
+   */
+  public int getOptionalAttendees() {
+    return optionalAttendees;
+  }
+
+  /**
+   * Returns the score of this slot. Higher is better.
+   */
+  public double getScore() {
+    return score;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%s score=%.2f optional=%d", when, score, optionalAttendees);
+  }
+}
@@ -0,0 +1,152 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+/**
+ * How an {@link Event} repeats: every {@code period} minutes after its first occurrence, either
+ * forever, a fixed number of times, or until a given minute. Occurrences are a fixed number of
+ * minutes apart, so on the epoch minute axis they do not move with daylight saving changes.
+ *
+ * <p>Occurrences are never stored. They are generated on demand for the window being queried,
+ * jumping straight to the first occurrence that reaches into it, so a daily meeting that has run
+ * for years costs the same to query as one that started yesterday. Recurrences are considered
+ * read-only.
+ */
+public final class Recurrence {
+  /** The minutes in a day. */
+  public static final int DAY = 24 * 60;
+
+  /** The minutes in a week. */
+  public static final int WEEK = 7 * DAY;
+
+  private final int period;
+  private final int count;
+  private final int until;
+
+  private Recurrence(int period, int count, int until) {
+    this.period = period;
+    this.count = count;
+    this.until = until;
+  }
+
+  /**
+   * Returns a recurrence that repeats every {@code period} minutes forever.
+   */
+  public static Recurrence every(int period) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("period must be positive");
+    }
+
+    return new Recurrence(period, Integer.MAX_VALUE, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Returns a recurrence that repeats every day forever.
+   */
+  public static Recurrence daily() {
+    return every(DAY);
+  }
+
+  /**
+   * Returns a recurrence that repeats every week forever.
+   */
+  public static Recurrence weekly() {
+    return every(WEEK);
+  }
+
+  /**
+   * Returns a copy of this recurrence that stops after {@code count} occurrences, counting the
+   * first.
+   */
+  public Recurrence times(int count) {
+    if (count <= 0) {
+      throw new IllegalArgumentException("count must be positive");
+    }
+
+    return new Recurrence(period, count, until);
+  }
+
+  /**
+   * Returns a copy of this recurrence without occurrences that start at or after {@code minute}.
+   */
+  public Recurrence until(int minute) {
+    return new Recurrence(period, count, minute);
+  }
+
+  /**
+   * Returns the minutes between the starts of two occurrences.
+   */
+  public int getPeriod() {
+    return period;
+  }
+
+  /**
+   * Returns how many times the event happens, counting the first, or {@link Integer#MAX_VALUE} if
+   * there is no limit.
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the minute at or after which no occurrence starts, or {@link Integer#MAX_VALUE} if
+   * there is none.
+   */
+  public int getUntil() {
+    return until;
+  }
+
+  /**
+   * Appends the occurrences of a series starting with {@code first} that overlap {@code window} to
+   * {@code out}, in start order. Only those occurrences are generated.
+   */
+  void addOccurrences(TimeRange first, TimeRange window, IntervalBuffer out) {
+    // Occurrence k ends at first.end() + k * period, so the first one that ends after the window
+    // starts can be computed instead of searched for.
+    long k = Math.max(0, Math.floorDiv((long) window.start() - first.end(), period) + 1);
+    long limit = Math.min(window.end(), until);
+    for (long start = first.start() + k * period; k < count && start < limit;
+        k++, start += period) {
+      out.add((int) start, (int) (start + first.duration()));
+    }
+  }
+
+  @Override
+  public int hashCode() {
+    return (period * 31 + count) * 31 + until;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof Recurrence)) {
+      return false;
+    }
+    Recurrence recurrence = (Recurrence) other;
+    return period == recurrence.period && count == recurrence.count
+        && until == recurrence.until;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("every ").append(period).append(" minutes");
+    if (count != Integer.MAX_VALUE) {
+      builder.append(", ").append(count).append(" times");
+    }
+    if (until != Integer.MAX_VALUE) {
+      builder.append(", until ").append(until);
+    }
+    return builder.toString();
+  }
+}
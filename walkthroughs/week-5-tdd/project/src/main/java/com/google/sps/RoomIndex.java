@@ -0,0 +1,276 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Answers which times at least one room of a given capacity is free, without looking at every
+ * room.
+ *
+ * <p>A free gap of one room is useless whenever another big enough room has a free gap around it,
+ * so for every capacity the index only keeps the gaps no other gap contains. Sorted by start, those
+ * gaps also end in increasing order, so the gaps that can hold a meeting inside a window are one
+ * contiguous run found with a binary search. However many rooms there are, a query costs about as
+ * much as the distinct free times of the rooms, and rooms with the same free times cost nothing
+ * extra.
+ *
+ * <p>The index is a snapshot of the room calendars over one horizon: rooms are busy outside it,
+ * and the index has to be rebuilt when a room's events change.
+ */
+public final class RoomIndex {
+  private static final Comparator<Room> BY_CAPACITY = Comparator.comparingInt(Room::getCapacity);
+
+  private final TimeRange horizon;
+
+  // Every room by increasing capacity, and the busy times of each room in the same order.
+  private final Room[] rooms;
+  private final List<List<TimeRange>> busy;
+
+  // The distinct capacities in increasing order. Rooms from firstRoom[t] on seat at least
+  // capacities[t] people, and gaps[t] holds the free gaps of those rooms that no other gap of
+  // theirs contains.
+  private final int[] capacities;
+  private final int[] firstRoom;
+  private final IntervalBuffer[] gaps;
+
+  private RoomIndex(TimeRange horizon, Room[] rooms, List<List<TimeRange>> busy,
+      int[] capacities, int[] firstRoom, IntervalBuffer[] gaps) {
+    this.horizon = horizon;
+    this.rooms = rooms;
+    this.busy = busy;
+    this.capacities = capacities;
+    this.firstRoom = firstRoom;
+    this.gaps = gaps;
+  }
+
+  /**
+   * Indexes {@code rooms}, reading when each one is busy inside {@code horizon} from
+   * {@code calendars}.
+   */
+  public static RoomIndex of(Collection<Room> rooms, BusyTimes calendars, TimeRange horizon) {
+    Room[] sorted = rooms.toArray(new Room[0]);
+    Arrays.sort(sorted, BY_CAPACITY);
+    Set<String> names = new HashSet<>();
+    List<List<TimeRange>> busy = new ArrayList<>(sorted.length);
+    for (Room room : sorted) {
+      if (!names.add(room.getName())) {
+        throw new IllegalArgumentException("rooms must have distinct names");
+      }
+      busy.add(calendars.getBusyTimes(room.getName(), horizon));
+    }
+
+    int distinct = 0;
+    for (int i = 0; i < sorted.length; i++) {
+      if (i == 0 || sorted[i].getCapacity() != sorted[i - 1].getCapacity()) {
+        distinct++;
+      }
+    }
+    int[] capacities = new int[distinct];
+    int[] firstRoom = new int[distinct];
+    IntervalBuffer[] gaps = new IntervalBuffer[distinct];
+
+    // Going from the biggest rooms down, each capacity can use its own rooms' gaps and every gap
+    // kept for the bigger capacities.
+    IntervalBuffer candidates = new IntervalBuffer();
+    int threshold = distinct - 1;
+    for (int i = sorted.length - 1; i >= 0; i--) {
+      IntervalBuffer free =
+          SweepLineScheduler.freeWindows(IntervalBuffer.of(busy.get(i)), horizon, 1);
+      for (int j = 0; j < free.size(); j++) {
+        candidates.add(free.start(j), free.end(j));
+      }
+      if (i == 0 || sorted[i - 1].getCapacity() != sorted[i].getCapacity()) {
+        IntervalBuffer kept = outermost(candidates);
+        capacities[threshold] = sorted[i].getCapacity();
+        firstRoom[threshold] = i;
+        gaps[threshold] = kept;
+        candidates = new IntervalBuffer(kept.size());
+        for (int j = 0; j < kept.size(); j++) {
+          candidates.add(kept.start(j), kept.end(j));
+        }
+        threshold--;
+      }
+    }
+    return new RoomIndex(horizon, sorted, busy, capacities, firstRoom, gaps);
+  }
+
+  /**
+   * Returns the horizon the room calendars were read over.
+   */
+  public TimeRange getHorizon() {
+    return horizon;
+  }
+
+  /**
+   * Returns how many rooms are indexed.
+   */
+  public int size() {
+    return rooms.length;
+  }
+
+  /**
+   * Returns the smallest room that seats at least {@code capacity} people and is free for all of
+   * {@code when}, or null if there is none. Use this to pick the room once a time has been chosen.
+   */
+  public Room findRoom(TimeRange when, int capacity) {
+    if (!horizon.contains(when)) {
+      return null;
+    }
+    int threshold = thresholdFor(capacity);
+    if (threshold == capacities.length) {
+      return null;
+    }
+    for (int i = firstRoom[threshold]; i < rooms.length; i++) {
+      if (isFree(busy.get(i), when)) {
+        return rooms[i];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the parts of {@code windows} where a meeting of {@code duration} minutes fits in a room
+   * that seats at least {@code capacity} people, in ascending order. Every start time a returned
+   * window leaves room for fits in some room, but not always the same one: when two rooms are free
+   * at different times, the returned windows can overlap.
+   *
+   * @param windows Free windows, sorted and disjoint.
+   */
+  IntervalBuffer restrict(IntervalBuffer windows, int capacity, long duration) {
+    IntervalBuffer fits = new IntervalBuffer();
+    int threshold = thresholdFor(capacity);
+    if (threshold == capacities.length) {
+      return fits;
+    }
+
+    IntervalBuffer free = gaps[threshold];
+    int length = (int) duration;
+    // The start times found so far that have not been written yet, as [runStart, runLastStart].
+    boolean inRun = false;
+    int runStart = 0;
+    int runLastStart = 0;
+    for (int w = 0; w < windows.size(); w++) {
+      int windowStart = windows.start(w);
+      int windowEnd = windows.end(w);
+      for (int i = firstEndingAtOrAfter(free, windowStart + length);
+          i < free.size() && free.start(i) <= windowEnd - length; i++) {
+        int start = Math.max(windowStart, free.start(i));
+        int end = Math.min(windowEnd, free.end(i));
+        if (end - start < length) {
+          continue;
+        }
+        if (inRun && start <= runLastStart + 1) {
+          runLastStart = Math.max(runLastStart, end - length);
+        } else {
+          if (inRun) {
+            fits.add(runStart, runLastStart + length);
+          }
+          inRun = true;
+          runStart = start;
+          runLastStart = end - length;
+        }
+      }
+    }
+    if (inRun) {
+      fits.add(runStart, runLastStart + length);
+    }
+    return fits;
+  }
+
+  /**
+   * Returns the index of the smallest capacity that is at least {@code capacity}, or the number of
+   * capacities if every room is too small.
+   */
+  private int thresholdFor(int capacity) {
+    int index = Arrays.binarySearch(capacities, capacity);
+    return index >= 0 ? index : -index - 1;
+  }
+
+  /**
+   * Returns the gaps in {@code candidates} that no other gap contains, sorted by start. Their ends
+   * are then sorted too.
+   */
+  private static IntervalBuffer outermost(IntervalBuffer candidates) {
+    candidates.sort();
+    IntervalBuffer kept = new IntervalBuffer();
+    boolean pending = false;
+    int pendingStart = 0;
+    int pendingEnd = 0;
+    for (int i = 0; i < candidates.size(); i++) {
+      int start = candidates.start(i);
+      int end = candidates.end(i);
+      if (pending && start == pendingStart) {
+        // Sorted by end within a start, so this gap contains the pending one.
+        pendingEnd = end;
+        continue;
+      }
+      if (pending && end <= pendingEnd) {
+        continue;
+      }
+      if (pending) {
+        kept.add(pendingStart, pendingEnd);
+      }
+      pending = true;
+      pendingStart = start;
+      pendingEnd = end;
+    }
+    if (pending) {
+      kept.add(pendingStart, pendingEnd);
+    }
+    return kept;
+  }
+
+  /**
+   * Returns the index of the first of {@code gaps} that ends at or after {@code minute}. The ends
+   * of {@code gaps} must be sorted.
+   */
+  private static int firstEndingAtOrAfter(IntervalBuffer gaps, int minute) {
+    int low = 0;
+    int high = gaps.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (gaps.end(middle) < minute) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns whether none of the sorted, merged {@code busy} ranges overlap {@code when}.
+   */
+  private static boolean isFree(List<TimeRange> busy, TimeRange when) {
+    int low = 0;
+    int high = busy.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (busy.get(middle).end() <= when.start()) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low == busy.size() || busy.get(low).start() >= when.end();
+  }
+}
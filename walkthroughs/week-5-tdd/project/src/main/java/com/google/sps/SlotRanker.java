@@ -0,0 +1,383 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the K best concrete meeting times instead of every possible window. Each candidate slot is
+ * scored as
+ *
+ * <pre>
+ *   optionalWeight * (optional attendees who can come)
+ *       + preferenceWeight * (1 if inside one of the request's preferred windows, else 0)
+ *       - distanceWeight * (minutes away from the preferred start)
+ *       - fragmentationWeight * (free minutes left over that are too short for another meeting)
+ * </pre>
+ *
+ * <p>The slots returned never overlap: the first is the best start anywhere, and each next one is
+ * the best start that does not overlap a slot already picked. Ties go to the earlier start.
+ *
+ * <p>Free windows are opened in order of distance from the preferred start. No start in a window
+ * can score higher than having every optional attendee in a preferred window at the window's
+ * distance, so the search stops opening windows as soon as that bound falls below the best slot
+ * still on offer.
+ */
+public final class SlotRanker {
+  /** The most slots a single search can ask for. */
+  public static final int MAX_K = 100;
+
+  // By default one more optional attendee is worth moving the meeting by an hour.
+  private static final double DEFAULT_OPTIONAL_WEIGHT = 60;
+  private static final double DEFAULT_DISTANCE_WEIGHT = 1;
+  private static final double DEFAULT_FRAGMENTATION_WEIGHT = 0.5;
+  // Meeting inside a preferred window is worth as much as one more optional attendee.
+  private static final double DEFAULT_PREFERENCE_WEIGHT = 60;
+
+  private static final Comparator<Segment> BEST_SEGMENT_FIRST = new Comparator<Segment>() {
+    @Override
+    public int compare(Segment a, Segment b) {
+      return RankedSlot.BEST_FIRST.compare(a.best, b.best);
+    }
+  };
+
+  private final int preferredStart;
+  private final double optionalWeight;
+  private final double distanceWeight;
+  private final double fragmentationWeight;
+  private final double preferenceWeight;
+
+  /**
+   * Creates a ranker that prefers meetings starting close to {@code preferredStart}, using the
+   * default weights.
+   */
+  public SlotRanker(int preferredStart) {
+    this(preferredStart, DEFAULT_OPTIONAL_WEIGHT, DEFAULT_DISTANCE_WEIGHT,
+        DEFAULT_FRAGMENTATION_WEIGHT, DEFAULT_PREFERENCE_WEIGHT);
+  }
+
+  /**
+   * Creates a ranker with custom weights.
+   *
+   * @param preferredStart The start time to aim for, on the same time axis as the query.
+   * @param optionalWeight Score added for each optional attendee who can come. Must not be
+   *     negative.
+   * @param distanceWeight Score removed per minute away from {@code preferredStart}. Must not be
+   *     negative.
+   * @param fragmentationWeight Score removed per leftover free minute that is too short for another
+   *     meeting of the same length. Must not be negative.
+   * @param preferenceWeight Score added to slots inside one of the request's preferred windows.
+   *     Must not be negative.
+   */
+  public SlotRanker(int preferredStart, double optionalWeight, double distanceWeight,
+      double fragmentationWeight, double preferenceWeight) {
+    if (optionalWeight < 0 || distanceWeight < 0 || fragmentationWeight < 0
+        || preferenceWeight < 0) {
+      throw new IllegalArgumentException("weights cannot be negative");
+    }
+
+    this.preferredStart = preferredStart;
+    this.optionalWeight = optionalWeight;
+    this.distanceWeight = distanceWeight;
+    this.fragmentationWeight = fragmentationWeight;
+    this.preferenceWeight = preferenceWeight;
+  }
+
+  /**
+   * Returns up to {@code k} non-overlapping meeting times inside {@code horizon} when every
+   * required attendee is free and working, best first. {@code k} must be between 1 and
+   * {@link #MAX_K}.
+   */
+  public List<RankedSlot> topK(
+      BusyTimes index, MeetingRequest request, TimeRange horizon, int k) {
+    if (k <= 0 || k > MAX_K) {
+      throw new IllegalArgumentException("k must be between 1 and " + MAX_K);
+    }
+    if (request.getDuration() > horizon.duration()) {
+      return Collections.emptyList();
+    }
+
+    int duration = (int) request.getDuration();
+    IntervalBuffer windows = SweepLineScheduler.requiredWindows(index, request, horizon);
+    List<List<TimeRange>> optionalBusy =
+        SweepLineScheduler.optionalBusyTimes(index, request, horizon);
+    List<TimeRange> preferred = request.getPreferredWindows();
+    double maxBonus = optionalWeight * optionalBusy.size()
+        + (preferred.isEmpty() ? 0 : preferenceWeight);
+
+    // The parts of the opened windows that no picked slot overlaps, best first.
+    PriorityQueue<Segment> open = new PriorityQueue<>(BEST_SEGMENT_FIRST);
+    List<RankedSlot> ranked = new ArrayList<>(Math.min(k, windows.size()));
+
+    // Windows to the right of the split can start at or after the preferred start and get further
+    // away going right; windows to the left get further away going left.
+    int right = firstLatestStartAtOrAfter(windows, preferredStart, duration);
+    int left = right - 1;
+    while (ranked.size() < k) {
+      while (left >= 0 || right < windows.size()) {
+        boolean goLeft = right >= windows.size() || (left >= 0
+            && distance(windows, left, duration) <= distance(windows, right, duration));
+        int next = goLeft ? left : right;
+        double bound = maxBonus - distanceWeight * distance(windows, next, duration);
+        if (!open.isEmpty() && bound < open.peek().best.getScore()) {
+          break;
+        }
+        if (goLeft) {
+          left--;
+        } else {
+          right++;
+        }
+
+        Window window = new Window(windows.start(next), windows.end(next), duration, optionalBusy,
+            preferred);
+        offer(open, window, window.earliestStart, window.latestStart);
+      }
+
+      Segment segment = open.poll();
+      if (segment == null) {
+        break;
+      }
+      ranked.add(segment.best);
+
+      // The rest of the segment stays on offer, minus the starts that would overlap the pick.
+      int picked = segment.best.getWhen().start();
+      offer(open, segment.window, segment.from, picked - duration);
+      offer(open, segment.window, picked + duration, segment.to);
+    }
+    return ranked;
+  }
+
+  /**
+   * Adds the starts {@code [from, to]} of {@code window} to {@code open}, along with the best of
+   * them. Does nothing if the range is empty.
+   */
+  private void offer(PriorityQueue<Segment> open, Window window, int from, int to) {
+    if (from > to) {
+      return;
+    }
+
+    // The score is linear between breakpoints, so the best start is at the end of a piece.
+    RankedSlot best = score(window, from);
+    best = better(best, score(window, to));
+    int first = firstGreaterThan(window.breakpoints, from);
+    for (int i = first; i < window.breakpoints.length && window.breakpoints[i] <= to; i++) {
+      best = better(best, score(window, window.breakpoints[i] - 1));
+      best = better(best, score(window, window.breakpoints[i]));
+    }
+    open.add(new Segment(window, from, to, best));
+  }
+
+  private static RankedSlot better(RankedSlot a, RankedSlot b) {
+    return RankedSlot.BEST_FIRST.compare(a, b) <= 0 ? a : b;
+  }
+
+  private RankedSlot score(Window window, int start) {
+    int end = start + window.duration;
+    int optional = 0;
+    for (List<TimeRange> busy : window.optionalBusy) {
+      if (isFree(busy, start, end)) {
+        optional++;
+      }
+    }
+
+    int fragmented = 0;
+    int before = start - window.range.start();
+    int after = window.range.end() - end;
+    if (before < window.duration) {
+      fragmented += before;
+    }
+    if (after < window.duration) {
+      fragmented += after;
+    }
+
+    double score = optionalWeight * optional - distanceWeight * Math.abs(start - preferredStart)
+        - fragmentationWeight * fragmented;
+    for (TimeRange range : window.preferred) {
+      if (range.start() <= start && end <= range.end()) {
+        score += preferenceWeight;
+        break;
+      }
+    }
+    return new RankedSlot(TimeRange.fromStartEnd(start, end, false), optional, score);
+  }
+
+  /**
+   * Returns how far the closest possible start inside window {@code i} is from the preferred start.
+   */
+  private int distance(IntervalBuffer windows, int i, int duration) {
+    int latestStart = windows.end(i) - duration;
+    if (preferredStart < windows.start(i)) {
+      return windows.start(i) - preferredStart;
+    }
+    return Math.max(0, preferredStart - latestStart);
+  }
+
+  /**
+   * Returns the index of the first window whose latest possible start is at or after
+   * {@code minute}.
+   */
+  private static int firstLatestStartAtOrAfter(IntervalBuffer windows, int minute, int duration) {
+    int low = 0;
+    int high = windows.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (windows.end(middle) - duration < minute) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the sorted, merged {@code busy} ranges that overlap {@code window}.
+   */
+  private static List<TimeRange> busyOverlapping(List<TimeRange> busy, TimeRange window) {
+    int from = firstEndingAfter(busy, window.start());
+    int to = from;
+    while (to < busy.size() && busy.get(to).start() < window.end()) {
+      to++;
+    }
+    return busy.subList(from, to);
+  }
+
+  /**
+   * Returns whether none of the sorted, merged {@code busy} ranges overlap {@code [start, end)}.
+   */
+  private static boolean isFree(List<TimeRange> busy, int start, int end) {
+    int first = firstEndingAfter(busy, start);
+    return first == busy.size() || busy.get(first).start() >= end;
+  }
+
+  /**
+   * Returns the index of the first of the merged {@code ranges} that ends after {@code minute}.
+   */
+  private static int firstEndingAfter(List<TimeRange> ranges, int minute) {
+    int low = 0;
+    int high = ranges.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (ranges.get(middle).end() <= minute) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the index of the first of the sorted {@code values} greater than {@code minute}.
+   */
+  private static int firstGreaterThan(int[] values, int minute) {
+    int low = 0;
+    int high = values.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (values[middle] <= minute) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * A free window of the required attendees, along with the starts where the score inside it can
+   * change direction.
+   */
+  private final class Window {
+    final TimeRange range;
+    final int duration;
+    final int earliestStart;
+    final int latestStart;
+    final List<List<TimeRange>> optionalBusy;
+    final List<TimeRange> preferred;
+
+    // Sorted, distinct starts in (earliestStart, latestStart] where a new linear piece of the score
+    // begins: the preferred start, where an optional attendee becomes busy or free again, where
+    // the meeting enters or leaves a preferred window, and where a leftover gap becomes long
+    // enough for another meeting.
+    final int[] breakpoints;
+
+    Window(int start, int end, int duration, List<List<TimeRange>> optionalBusy,
+        List<TimeRange> preferred) {
+      this.range = TimeRange.fromStartEnd(start, end, false);
+      this.duration = duration;
+      this.earliestStart = start;
+      this.latestStart = end - duration;
+      this.optionalBusy = optionalBusy;
+      this.preferred = preferred;
+
+      List<List<TimeRange>> overlapping = new ArrayList<>(optionalBusy.size());
+      int size = 3 + 2 * preferred.size();
+      for (List<TimeRange> busy : optionalBusy) {
+        List<TimeRange> inWindow = busyOverlapping(busy, range);
+        overlapping.add(inWindow);
+        size += 2 * inWindow.size();
+      }
+
+      int[] starts = new int[size];
+      int count = 0;
+      starts[count++] = preferredStart;
+      starts[count++] = earliestStart + duration;
+      starts[count++] = latestStart - duration + 1;
+      for (TimeRange window : preferred) {
+        starts[count++] = window.start();
+        starts[count++] = window.end() - duration + 1;
+      }
+      for (List<TimeRange> busy : overlapping) {
+        for (TimeRange busyRange : busy) {
+          starts[count++] = busyRange.start() - duration + 1;
+          starts[count++] = busyRange.end();
+        }
+      }
+
+      Arrays.sort(starts);
+      int unique = 0;
+      for (int breakpoint : starts) {
+        if (breakpoint <= earliestStart || breakpoint > latestStart) {
+          continue;
+        }
+        if (unique == 0 || starts[unique - 1] != breakpoint) {
+          starts[unique++] = breakpoint;
+        }
+      }
+      this.breakpoints = Arrays.copyOf(starts, unique);
+    }
+  }
+
+  /** The starts {@code [from, to]} of a window that are still on offer, and the best of them. */
+  private static final class Segment {
+    final Window window;
+    final int from;
+    final int to;
+    final RankedSlot best;
+
+    Segment(Window window, int from, int to, RankedSlot best) {
+      this.window = window;
+      this.from = from;
+      this.to = to;
+      this.best = best;
+    }
+  }
+}
@@ -0,0 +1,303 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds meeting times by sorting the busy intervals of the requested attendees once and sweeping
+ * over them in start order. A query costs O(n log n) in the number of intervals that involve a
+ * requested attendee, instead of splicing every attendee's free list for every event.
+ *
+ * <p>A request's buffer widens every busy interval as it is swept, and working hours are applied
+ * afterwards as a mask over the free windows; see {@link ConstraintMask}.
+ */
+public final class SweepLineScheduler {
+  // Where phase latencies and busy ranges read are recorded, or null to not record them.
+  private final QueryMetrics metrics;
+
+  /**
+   * Creates a scheduler that records nothing.
+   */
+  public SweepLineScheduler() {
+    this(null);
+  }
+
+  /**
+   * Creates a scheduler that records how long each phase of a query takes in {@code metrics}, or
+   * nothing if it is null.
+   */
+  public SweepLineScheduler(QueryMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Returns the times when every required attendee is free for at least the requested duration.
+   * If optional attendees are given, only the windows where the most of them can also attend are
+   * returned.
+   */
+  public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    if (request.getDuration() > TimeRange.WHOLE_DAY.duration()) {
+      return Arrays.asList();
+    }
+
+    long phaseStart = QueryMetrics.startTimer(metrics);
+    Collection<String> attendees = request.getAttendees();
+    int buffer = (int) request.getBuffer();
+    TimeRange widened = ConstraintMask.widen(TimeRange.WHOLE_DAY, buffer);
+    IntervalBuffer busy = new IntervalBuffer();
+    Map<String, List<TimeRange>> optionalBusy = new HashMap<>();
+    for (String optionalAttendee : request.getOptionalAttendees()) {
+      optionalBusy.put(optionalAttendee, new ArrayList<TimeRange>());
+    }
+    phaseStart = QueryMetrics.lap(metrics, QueryMetrics.Phase.INIT_SCHEDULES, phaseStart);
+
+    // Bucket each event once: it either blocks the required attendees, some optional attendees,
+    // or nobody we care about.
+    for (Event event : events) {
+      boolean blocksRequired = false;
+      for (String attendee : event.getAttendees()) {
+        if (attendees.contains(attendee)) {
+          blocksRequired = true;
+        }
+        List<TimeRange> optional = optionalBusy.get(attendee);
+        if (optional != null) {
+          optional.addAll(occurrences(event, widened));
+        }
+      }
+      if (blocksRequired) {
+        for (TimeRange when : occurrences(event, widened)) {
+          busy.add(when.start() - buffer, when.end() + buffer);
+        }
+      }
+    }
+
+    for (Map.Entry<String, List<TimeRange>> optional : optionalBusy.entrySet()) {
+      Collections.sort(optional.getValue(), TimeRange.ORDER_BY_START);
+      optional.setValue(ConstraintMask.unavailable(
+          optional.getValue(), optional.getKey(), request, TimeRange.WHOLE_DAY));
+    }
+    phaseStart = QueryMetrics.lap(metrics, QueryMetrics.Phase.SCHEDULE_EVENTS, phaseStart);
+
+    IntervalBuffer meetingTimes = ConstraintMask.restrict(
+        freeWindows(busy, TimeRange.WHOLE_DAY, request.getDuration()), request);
+    return answer(meetingTimes, optionalBusy.values(), request.getDuration(), phaseStart);
+  }
+
+  /**
+   * Answers {@code request} from the busy times in {@code index}. Only the attendees named in the
+   * request are looked up.
+   */
+  public Collection<TimeRange> query(BusyTimes index, MeetingRequest request) {
+    return query(index, request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Answers {@code request} for any span of time, not just a single day. Only the busy times that
+   * overlap {@code horizon} are read from {@code index}, so the cost grows with the events inside
+   * the horizon rather than with the attendees' whole calendars.
+   */
+  public Collection<TimeRange> query(
+      BusyTimes index, MeetingRequest request, TimeRange horizon) {
+    return queryIndex(index, null, request, horizon);
+  }
+
+  /**
+   * Like {@link #query(BusyTimes, MeetingRequest, TimeRange)}, but only returns times when at
+   * least one room in {@code rooms} that seats {@link MeetingRequest#getRoomCapacity()} people is
+   * free as well. See {@link RoomIndex#restrict} for why the returned windows can overlap.
+   */
+  public Collection<TimeRange> query(
+      BusyTimes index, RoomIndex rooms, MeetingRequest request, TimeRange horizon) {
+    return queryIndex(index, rooms, request, horizon);
+  }
+
+  /**
+   * Answers {@code request} over {@code horizon} from {@code index}, and only keeps the times a
+   * room in {@code rooms} is free too unless {@code rooms} is null. This is
+   * {@link #requiredWindows} and {@link #optionalBusyTimes} with a timer around each phase.
+   */
+  private Collection<TimeRange> queryIndex(
+      BusyTimes index, RoomIndex rooms, MeetingRequest request, TimeRange horizon) {
+    if (request.getDuration() > horizon.duration()) {
+      return Arrays.asList();
+    }
+
+    long phaseStart = QueryMetrics.startTimer(metrics);
+    int[] ids = index.getAttendeeDictionary().idsOf(request.getAttendees());
+    phaseStart = QueryMetrics.lap(metrics, QueryMetrics.Phase.INIT_SCHEDULES, phaseStart);
+
+    List<List<TimeRange>> busy =
+        busyTimes(index, ids, ConstraintMask.widen(horizon, request.getBuffer()));
+    List<List<TimeRange>> optionalBusy = optionalBusyTimes(index, request, horizon);
+    if (metrics != null) {
+      metrics.addBusyRangesRead(size(busy) + size(optionalBusy));
+    }
+    phaseStart = QueryMetrics.lap(metrics, QueryMetrics.Phase.SCHEDULE_EVENTS, phaseStart);
+
+    IntervalBuffer meetingTimes = ConstraintMask.restrict(
+        freeWindows(busy, horizon, request.getDuration(), request.getBuffer()), request);
+    if (rooms != null) {
+      meetingTimes = rooms.restrict(
+          meetingTimes, request.getRoomCapacity(), request.getDuration());
+    }
+    return answer(meetingTimes, optionalBusy, request.getDuration(), phaseStart);
+  }
+
+  /**
+   * Returns the windows inside {@code horizon} when every required attendee in {@code request} is
+   * free and working for at least the requested duration, ignoring optional attendees.
+   */
+  static IntervalBuffer requiredWindows(
+      BusyTimes index, MeetingRequest request, TimeRange horizon) {
+    int[] ids = index.getAttendeeDictionary().idsOf(request.getAttendees());
+    List<List<TimeRange>> busy =
+        busyTimes(index, ids, ConstraintMask.widen(horizon, request.getBuffer()));
+    return ConstraintMask.restrict(
+        freeWindows(busy, horizon, request.getDuration(), request.getBuffer()), request);
+  }
+
+  /**
+   * Returns, for each optional attendee in {@code request}, the sorted and merged times inside
+   * {@code horizon} they cannot meet, taking the request's buffer and their working hours into
+   * account.
+   */
+  static List<List<TimeRange>> optionalBusyTimes(
+      BusyTimes index, MeetingRequest request, TimeRange horizon) {
+    TimeRange widened = ConstraintMask.widen(horizon, request.getBuffer());
+    AttendeeDictionary dictionary = index.getAttendeeDictionary();
+    List<List<TimeRange>> busy = new ArrayList<>(request.getOptionalAttendees().size());
+    for (String attendee : request.getOptionalAttendees()) {
+      busy.add(ConstraintMask.unavailable(
+          index.getBusyTimes(dictionary.idOf(attendee), widened), attendee, request, horizon));
+    }
+    return busy;
+  }
+
+  /**
+   * Returns the busy times of each attendee in {@code ids} that overlap {@code horizon}, in the
+   * same order.
+   */
+  static List<List<TimeRange>> busyTimes(BusyTimes index, int[] ids, TimeRange horizon) {
+    List<List<TimeRange>> busy = new ArrayList<>(ids.length);
+    for (int id : ids) {
+      busy.add(index.getBusyTimes(id, horizon));
+    }
+    return busy;
+  }
+
+  /**
+   * Returns the total number of ranges in {@code lists}.
+   */
+  static long size(List<List<TimeRange>> lists) {
+    long size = 0;
+    for (List<TimeRange> list : lists) {
+      size += list.size();
+    }
+    return size;
+  }
+
+  /**
+   * Returns when {@code event} takes place, expanding a recurring event into its occurrences in
+   * {@code window}.
+   */
+  private static List<TimeRange> occurrences(Event event, TimeRange window) {
+    if (event.getRecurrence() == null) {
+      return Collections.singletonList(event.getWhen());
+    }
+    return event.occurrences(window);
+  }
+
+  /**
+   * Narrows {@code meetingTimes} to the windows the most optional attendees can attend, timing
+   * both phases since {@code phaseStart}.
+   */
+  private List<TimeRange> answer(IntervalBuffer meetingTimes,
+      Collection<? extends List<TimeRange>> optionalBusy, long duration, long phaseStart) {
+    phaseStart =
+        QueryMetrics.lap(metrics, QueryMetrics.Phase.DETERMINE_AVAILABLE_TIME, phaseStart);
+    if (optionalBusy.isEmpty() || meetingTimes.size() == 0) {
+      return meetingTimes.toTimeRanges();
+    }
+    List<TimeRange> answer =
+        OptionalAttendeeOptimizer.mostAttendedWindows(meetingTimes, optionalBusy, duration);
+    QueryMetrics.lap(metrics, QueryMetrics.Phase.DETERMINE_FREQUENCY, phaseStart);
+    return answer;
+  }
+
+  /**
+   * Turns {@code busy} into the gaps between its intervals that fall inside {@code bounds} and last
+   * at least {@code minDuration} minutes, in ascending order, and returns it.
+   */
+  static IntervalBuffer freeWindows(IntervalBuffer busy, TimeRange bounds, long minDuration) {
+    return busy.merge().complement(bounds.start(), bounds.end()).removeShorterThan(minDuration);
+  }
+
+  /**
+   * Returns the gaps inside {@code bounds} when none of the {@code busy} lists is busy that last at
+   * least {@code minDuration} minutes, in ascending order. Each list must be sorted and merged, as
+   * {@link BusyTimes} keeps them, so the lists are merged on the fly instead of sorted.
+   */
+  static IntervalBuffer freeWindows(
+      List<List<TimeRange>> busy, TimeRange bounds, long minDuration) {
+    return freeWindows(busy, bounds, minDuration, 0);
+  }
+
+  /**
+   * Like {@link #freeWindows(List, TimeRange, long)}, but treats every busy range as starting
+   * {@code padding} minutes earlier and ending {@code padding} minutes later.
+   */
+  static IntervalBuffer freeWindows(
+      List<List<TimeRange>> busy, TimeRange bounds, long minDuration, long padding) {
+    int pad = (int) padding;
+    IntervalBuffer free = new IntervalBuffer();
+    int[] next = new int[busy.size()];
+    int cursor = bounds.start();
+    while (cursor < bounds.end()) {
+      // Find the earliest range, across every list, that is still busy after the cursor.
+      int earliest = -1;
+      int earliestStart = bounds.end();
+      for (int i = 0; i < busy.size(); i++) {
+        List<TimeRange> ranges = busy.get(i);
+        while (next[i] < ranges.size() && ranges.get(next[i]).end() + pad <= cursor) {
+          next[i]++;
+        }
+        if (next[i] < ranges.size() && ranges.get(next[i]).start() - pad < earliestStart) {
+          earliest = i;
+          earliestStart = ranges.get(next[i]).start() - pad;
+        }
+      }
+      if (earliest < 0) {
+        break;
+      }
+      addIfLongEnough(free, cursor, earliestStart, minDuration);
+      cursor = Math.max(cursor, busy.get(earliest).get(next[earliest]).end() + pad);
+    }
+    addIfLongEnough(free, cursor, bounds.end(), minDuration);
+    return free;
+  }
+
+  private static void addIfLongEnough(IntervalBuffer free, int start, int end, long duration) {
+    if (end > start && end - start >= duration) {
+      free.add(start, end);
+    }
+  }
+}
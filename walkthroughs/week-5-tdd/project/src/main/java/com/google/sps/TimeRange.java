@@ -89,7 +89,7 @@ public final class TimeRange {
     //
     // Case 3: |---------|
     //            |---|
-    return this.contains(other.start) || other.contains(this.start);
+    return contains(this, other.start) || contains(other, this.start);
   }
 
   /**
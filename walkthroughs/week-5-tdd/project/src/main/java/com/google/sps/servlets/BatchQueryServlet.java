@@ -0,0 +1,145 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.BusyTimes;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.QueryMetrics;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers a JSON array of meeting requests with a JSON array of answers in the same order. The
+ * requests are evaluated in parallel against the shared busy index, and each answer is written as
+ * soon as it and every answer before it are ready.
+ *
+ * <p>If answering a request fails after the first answers went out, the status can no longer
+ * change. The array then ends with an {@code {"error": ...}} object in place of the failed answer,
+ * and the answers after it are left out.
+ *
+ * <p>A batch holds at most {@value #MAX_BATCH_SIZE} requests. Larger batches, missing bodies,
+ * null entries and requests that fail {@link MeetingRequest#validate} are rejected with a 400.
+ */
+@WebServlet("/batch-query")
+public class BatchQueryServlet extends HttpServlet {
+  /** The most requests a single batch may hold. */
+  public static final int MAX_BATCH_SIZE = 500;
+
+  private static final Type REQUESTS_TYPE = new TypeToken<List<MeetingRequest>>() {}.getType();
+
+  private BusyTimes index;
+  private ForkJoinPool pool;
+  private QueryMetrics metrics;
+
+  @Override
+  public void init() {
+    index = CalendarContextListener.getBusyTimes(getServletContext());
+    pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    metrics = CalendarContextListener.getQueryMetrics(getServletContext());
+  }
+
+  @Override
+  public void destroy() {
+    pool.shutdown();
+  }
+
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    long start = System.nanoTime();
+    try {
+      answerBatch(request, response);
+    } finally {
+      metrics.recordRequest("/batch-query", System.nanoTime() - start);
+    }
+  }
+
+  private void answerBatch(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    List<MeetingRequest> meetingRequests;
+    try {
+      meetingRequests = CalendarJson.GSON.fromJson(request.getReader(), REQUESTS_TYPE);
+    } catch (JsonParseException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Malformed meeting requests");
+      return;
+    }
+    String problem = validate(meetingRequests);
+    if (problem != null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, problem);
+      return;
+    }
+
+    FindMeetingQuery findMeetingQuery =
+        new FindMeetingQuery(FindMeetingQuery.Mode.SWEEP, metrics);
+    List<ForkJoinTask<Collection<TimeRange>>> tasks =
+        findMeetingQuery.submitAll(index, meetingRequests, pool);
+
+    try (JsonWriter writer = CalendarJson.startResponse(request, response)) {
+      writer.beginArray();
+      for (int i = 0; i < tasks.size(); i++) {
+        Collection<TimeRange> answer;
+        try {
+          answer = tasks.get(i).join();
+        } catch (RuntimeException e) {
+          log("Batch query " + i + " failed", e);
+          for (ForkJoinTask<Collection<TimeRange>> task : tasks) {
+            task.cancel(false);
+          }
+          writer.beginObject().name("error").value("Could not answer request " + i).endObject();
+          break;
+        }
+        CalendarJson.writeTimeRanges(writer, answer);
+        // Let the client start reading the answers that are already done.
+        writer.flush();
+      }
+      writer.endArray();
+    }
+  }
+
+  /**
+   * Returns why {@code meetingRequests} cannot be answered, or null if it can.
+   */
+  private static String validate(List<MeetingRequest> meetingRequests) {
+    if (meetingRequests == null) {
+      return "Expected a JSON array of meeting requests";
+    }
+    if (meetingRequests.size() > MAX_BATCH_SIZE) {
+      return "A batch can hold at most " + MAX_BATCH_SIZE + " requests";
+    }
+    for (int i = 0; i < meetingRequests.size(); i++) {
+      if (meetingRequests.get(i) == null) {
+        return "Meeting request " + i + " is null";
+      }
+      try {
+        meetingRequests.get(i).validate();
+      } catch (IllegalArgumentException e) {
+        return "Meeting request " + i + " is invalid: " + e.getMessage();
+      }
+    }
+    return null;
+  }
+}
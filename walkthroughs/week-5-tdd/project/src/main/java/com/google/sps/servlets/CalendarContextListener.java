@@ -0,0 +1,121 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.AttendeeBusyIndex;
+import com.google.sps.BusyTimes;
+import com.google.sps.CalendarSnapshot;
+import com.google.sps.Event;
+import com.google.sps.EventCatalog;
+import com.google.sps.Events;
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.QueryCache;
+import com.google.sps.QueryMetrics;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+
+/**
+ * Builds the calendar state every servlet shares when the app starts, so the events are indexed
+ * once instead of once per servlet or per request.
+ *
+ * <p>If the {@value #SNAPSHOT_PARAMETER} context parameter names a file written by
+ * {@link CalendarSnapshot#write}, meetings are found straight from that memory-mapped file instead
+ * of the built-in events, and the event catalog lists the snapshot's events.
+ */
+@WebListener
+public class CalendarContextListener implements ServletContextListener {
+  /** The context parameter holding the path of a calendar snapshot to query. */
+  public static final String SNAPSHOT_PARAMETER = "com.google.sps.calendarSnapshot";
+
+  private static final String BUSY_INDEX = "com.google.sps.busyIndex";
+  private static final String QUERY_CACHE = "com.google.sps.queryCache";
+  private static final String EVENT_CATALOG = "com.google.sps.eventCatalog";
+  private static final String QUERY_METRICS = "com.google.sps.queryMetrics";
+
+  // How many meeting requests the shared query cache remembers.
+  private static final int QUERY_CACHE_CAPACITY = 1024;
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    String snapshot = event.getServletContext().getInitParameter(SNAPSHOT_PARAMETER);
+    BusyTimes index;
+    EventCatalog catalog;
+    if (snapshot == null) {
+      List<Event> events = Arrays.asList(Events.events);
+      index = AttendeeBusyIndex.of(events);
+      catalog = EventCatalog.of(events);
+    } else {
+      CalendarSnapshot mapped;
+      try {
+        mapped = CalendarSnapshot.map(Paths.get(snapshot));
+      } catch (IOException e) {
+        throw new UncheckedIOException("Could not open calendar snapshot " + snapshot, e);
+      }
+      // /get-events lists the same events the queries are answered from, decoding them from the
+      // mapped file a page at a time.
+      index = mapped;
+      catalog = EventCatalog.of(mapped);
+    }
+    QueryMetrics metrics = new QueryMetrics();
+    event.getServletContext().setAttribute(QUERY_METRICS, metrics);
+    event.getServletContext().setAttribute(BUSY_INDEX, index);
+    event.getServletContext().setAttribute(QUERY_CACHE, new QueryCache(index,
+        new FindMeetingQuery(FindMeetingQuery.Mode.PARALLEL, metrics), QUERY_CACHE_CAPACITY));
+    event.getServletContext().setAttribute(EVENT_CATALOG, catalog);
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    event.getServletContext().removeAttribute(EVENT_CATALOG);
+    event.getServletContext().removeAttribute(QUERY_CACHE);
+    event.getServletContext().removeAttribute(BUSY_INDEX);
+    event.getServletContext().removeAttribute(QUERY_METRICS);
+  }
+
+  /**
+   * Returns the busy times every servlet of {@code context} queries.
+   */
+  public static BusyTimes getBusyTimes(ServletContext context) {
+    return (BusyTimes) context.getAttribute(BUSY_INDEX);
+  }
+
+  /**
+   * Returns the query cache shared by every servlet of {@code context}.
+   */
+  public static QueryCache getQueryCache(ServletContext context) {
+    return (QueryCache) context.getAttribute(QUERY_CACHE);
+  }
+
+  /**
+   * Returns the event catalog built for {@code context}.
+   */
+  public static EventCatalog getEventCatalog(ServletContext context) {
+    return (EventCatalog) context.getAttribute(EVENT_CATALOG);
+  }
+
+  /**
+   * Returns the latency histograms and counters every servlet of {@code context} records into.
+   */
+  public static QueryMetrics getQueryMetrics(ServletContext context) {
+    return (QueryMetrics) context.getAttribute(QUERY_METRICS);
+  }
+}
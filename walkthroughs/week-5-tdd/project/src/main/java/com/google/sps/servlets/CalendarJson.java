@@ -0,0 +1,262 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.Event;
+import com.google.sps.Recurrence;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Streams calendar JSON straight to the response instead of building it as a String first, so
+ * response memory no longer grows with the number of events and the first bytes go out as soon as
+ * they are ready. Responses are gzipped for clients that accept it.
+ *
+ * <p>The JSON has the same shape Gson gives these classes by default, which is what script.js
+ * expects: {@code {"title": ..., "when": {"start": ..., "duration": ...}, "attendees": [...]}}.
+ * Recurring events also carry {@code "recurrence": {"period": ..., "count": ..., "until": ...}},
+ * where {@code count} and {@code until} are left out if the event has no such limit.
+ */
+final class CalendarJson {
+  private static final TimeRangeAdapter TIME_RANGE_ADAPTER = new TimeRangeAdapter();
+  private static final RecurrenceAdapter RECURRENCE_ADAPTER = new RecurrenceAdapter();
+  private static final EventAdapter EVENT_ADAPTER = new EventAdapter();
+
+  /** A Gson that reads and writes events and time ranges without reflection. Thread-safe. */
+  static final Gson GSON = new GsonBuilder()
+                               .registerTypeAdapter(TimeRange.class, TIME_RANGE_ADAPTER)
+                               .registerTypeAdapter(Recurrence.class, RECURRENCE_ADAPTER)
+                               .registerTypeAdapter(Event.class, EVENT_ADAPTER)
+                               .create();
+
+  private CalendarJson() {
+    // Disallow instances.
+  }
+
+  /**
+   * Starts a JSON response, gzipped if the client accepts it. Close the writer when done so that
+   * the gzip trailer is written.
+   */
+  static JsonWriter startResponse(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    response.setContentType("application/json");
+    response.setCharacterEncoding("UTF-8");
+    response.addHeader("Vary", "Accept-Encoding");
+
+    OutputStream out = response.getOutputStream();
+    if (acceptsGzip(request)) {
+      response.setHeader("Content-Encoding", "gzip");
+      // Sync flush so that flushing the writer really sends what has been compressed so far.
+      out = new GZIPOutputStream(out, true);
+    }
+    return new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Returns whether {@link #startResponse} gzips the response to {@code request}.
+   */
+  static boolean acceptsGzip(HttpServletRequest request) {
+    String acceptEncoding = request.getHeader("Accept-Encoding");
+    return acceptEncoding != null && acceptEncoding.contains("gzip");
+  }
+
+  /**
+   * Writes {@code events} as a JSON array, one event at a time.
+   */
+  static void writeEvents(JsonWriter writer, Collection<Event> events) throws IOException {
+    writer.beginArray();
+    for (Event event : events) {
+      EVENT_ADAPTER.write(writer, event);
+    }
+    writer.endArray();
+  }
+
+  /**
+   * Writes {@code ranges} as a JSON array, one range at a time.
+   */
+  static void writeTimeRanges(JsonWriter writer, Collection<TimeRange> ranges) throws IOException {
+    writer.beginArray();
+    for (TimeRange range : ranges) {
+      TIME_RANGE_ADAPTER.write(writer, range);
+    }
+    writer.endArray();
+  }
+
+  /** Reads and writes a {@code TimeRange} as {@code {"start": ..., "duration": ...}}. */
+  private static final class TimeRangeAdapter extends TypeAdapter<TimeRange> {
+    @Override
+    public void write(JsonWriter writer, TimeRange range) throws IOException {
+      if (range == null) {
+        writer.nullValue();
+        return;
+      }
+      writer.beginObject();
+      writer.name("start").value(range.start());
+      writer.name("duration").value(range.duration());
+      writer.endObject();
+    }
+
+    @Override
+    public TimeRange read(JsonReader reader) throws IOException {
+      int start = 0;
+      int duration = 0;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "start":
+            start = reader.nextInt();
+            break;
+          case "duration":
+            duration = reader.nextInt();
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+      return TimeRange.fromStartDuration(start, duration);
+    }
+  }
+
+  /**
+   * Reads and writes a {@code Recurrence} as {@code {"period": ..., "count": ..., "until": ...}},
+   * leaving out the limits it does not have.
+   */
+  private static final class RecurrenceAdapter extends TypeAdapter<Recurrence> {
+    @Override
+    public void write(JsonWriter writer, Recurrence recurrence) throws IOException {
+      if (recurrence == null) {
+        writer.nullValue();
+        return;
+      }
+      writer.beginObject();
+      writer.name("period").value(recurrence.getPeriod());
+      if (recurrence.getCount() != Integer.MAX_VALUE) {
+        writer.name("count").value(recurrence.getCount());
+      }
+      if (recurrence.getUntil() != Integer.MAX_VALUE) {
+        writer.name("until").value(recurrence.getUntil());
+      }
+      writer.endObject();
+    }
+
+    @Override
+    public Recurrence read(JsonReader reader) throws IOException {
+      if (reader.peek() == JsonToken.NULL) {
+        reader.nextNull();
+        return null;
+      }
+      int period = 0;
+      int count = Integer.MAX_VALUE;
+      int until = Integer.MAX_VALUE;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "period":
+            period = reader.nextInt();
+            break;
+          case "count":
+            count = reader.nextInt();
+            break;
+          case "until":
+            until = reader.nextInt();
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+      Recurrence recurrence = Recurrence.every(period);
+      if (count != Integer.MAX_VALUE) {
+        recurrence = recurrence.times(count);
+      }
+      return until != Integer.MAX_VALUE ? recurrence.until(until) : recurrence;
+    }
+  }
+
+  /** Reads and writes an {@code Event} with its time nested under {@code "when"}. */
+  private static final class EventAdapter extends TypeAdapter<Event> {
+    @Override
+    public void write(JsonWriter writer, Event event) throws IOException {
+      if (event == null) {
+        writer.nullValue();
+        return;
+      }
+      writer.beginObject();
+      writer.name("title").value(event.getTitle());
+      writer.name("when");
+      TIME_RANGE_ADAPTER.write(writer, event.getWhen());
+      writer.name("attendees");
+      writer.beginArray();
+      for (String attendee : event.getAttendees()) {
+        writer.value(attendee);
+      }
+      writer.endArray();
+      if (event.getRecurrence() != null) {
+        writer.name("recurrence");
+        RECURRENCE_ADAPTER.write(writer, event.getRecurrence());
+      }
+      writer.endObject();
+    }
+
+    @Override
+    public Event read(JsonReader reader) throws IOException {
+      String title = null;
+      TimeRange when = null;
+      List<String> attendees = new ArrayList<>();
+      Recurrence recurrence = null;
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "title":
+            title = reader.nextString();
+            break;
+          case "when":
+            when = TIME_RANGE_ADAPTER.read(reader);
+            break;
+          case "attendees":
+            reader.beginArray();
+            while (reader.hasNext()) {
+              attendees.add(reader.nextString());
+            }
+            reader.endArray();
+            break;
+          case "recurrence":
+            recurrence = RECURRENCE_ADAPTER.read(reader);
+            break;
+          default:
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+      return new Event(title, when, attendees, recurrence);
+    }
+  }
+}
@@ -14,23 +14,169 @@
 
 package com.google.sps.servlets;
 
-import com.google.gson.Gson;
-import com.google.sps.Events;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.EventCatalog;
+import com.google.sps.QueryMetrics;
+import com.google.sps.TimeRange;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Lists events as a JSON array. All parameters are optional:
+ *
+ * <ul>
+ *   <li>{@code attendee}: only list events this person attends.
+ *   <li>{@code start}, {@code end}: only list events that overlap this window, in minutes.
+ *   <li>{@code limit}: list at most this many events. If more match, the {@code X-Next-Cursor}
+ *       header holds the {@code cursor} to ask for next.
+ * </ul>
+ *
+ * <p>Each page carries an ETag, so a client that sends it back in {@code If-None-Match} gets a 304
+ * if the page did not change. Parameters that are not numbers, a negative cursor, a limit that is
+ * not positive and an end before the start get a 400.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
+  private EventCatalog catalog;
+  private QueryMetrics metrics;
+
+  @Override
+  public void init() {
+    catalog = CalendarContextListener.getEventCatalog(getServletContext());
+    metrics = CalendarContextListener.getQueryMetrics(getServletContext());
+  }
+
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
+    long start = System.nanoTime();
+    try {
+      writePage(request, response);
+    } finally {
+      metrics.recordRequest("/get-events", System.nanoTime() - start);
+    }
+  }
+
+  private void writePage(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    String attendee = request.getParameter("attendee");
+    TimeRange window;
+    int cursor;
+    int limit;
+    EventCatalog.Page page;
+    try {
+      window = getWindow(request);
+      cursor = getRequestParameterOrDefault(request, "cursor", 0);
+      limit = getRequestParameterOrDefault(request, "limit", Integer.MAX_VALUE);
+      page = catalog.page(attendee, window, cursor, limit);
+    } catch (IllegalArgumentException e) {
+      // Covers parameters that are not numbers as well as negative cursors and limits.
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
+
+    // The catalog never changes, so its revision and the parameters identify the page without
+    // writing it out.
+    String etag = etag(catalog.getRevision(), attendee, window, cursor, limit,
+        CalendarJson.acceptsGzip(request));
+    response.setHeader("ETag", etag);
+    if (matches(request.getHeader("If-None-Match"), etag)) {
+      response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+      return;
+    }
+    if (page.getNextCursor() != EventCatalog.Page.NO_CURSOR) {
+      response.setHeader("X-Next-Cursor", Integer.toString(page.getNextCursor()));
+    }
+
+    // Stream the events one at a time instead of building the whole array as a String first.
+    try (JsonWriter writer = CalendarJson.startResponse(request, response)) {
+      CalendarJson.writeEvents(writer, page.getEvents());
+    }
+  }
+
+  /**
+   * Returns the window the {@code start} and {@code end} parameters ask for, or null if neither is
+   * set.
+   */
+  private static TimeRange getWindow(HttpServletRequest request) {
+    if (request.getParameter("start") == null && request.getParameter("end") == null) {
+      return null;
+    }
+    int start = getRequestParameterOrDefault(request, "start", TimeRange.START_OF_DAY);
+    int end = getRequestParameterOrDefault(request, "end", TimeRange.END_OF_DAY + 1);
+    if (end < start) {
+      throw new IllegalArgumentException("end cannot be before start");
+    }
+    return TimeRange.fromStartEnd(start, end, false);
+  }
+
+  /**
+   * Returns a strong ETag for the page of the catalog at {@code revision} that the parameters ask
+   * for: a SHA-256 digest of all of them, marked with the content encoding since gzipped and plain
+   * bodies differ.
+   */
+  private static String etag(long revision, String attendee, TimeRange window, int cursor,
+      int limit, boolean gzip) {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256.
+      throw new IllegalStateException(e);
+    }
+
+    // The attendee goes last so that no name can be mistaken for the numbers before it.
+    StringBuilder key = new StringBuilder().append(revision).append(' ').append(cursor)
+        .append(' ').append(limit).append(' ');
+    if (window != null) {
+      key.append(window.start()).append(' ').append(window.end());
+    }
+    if (attendee != null) {
+      key.append('=').append(attendee);
+    }
+    digest.update(key.toString().getBytes(StandardCharsets.UTF_8));
+
+    StringBuilder etag = new StringBuilder("\"");
+    for (byte b : digest.digest()) {
+      etag.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+    }
+    if (gzip) {
+      etag.append("-gzip");
+    }
+    return etag.append('"').toString();
+  }
+
+  /**
+   * Returns whether the {@code If-None-Match} header value names {@code etag}.
+   */
+  private static boolean matches(String ifNoneMatch, String etag) {
+    if (ifNoneMatch == null) {
+      return false;
+    }
+    for (String candidate : ifNoneMatch.split(",")) {
+      String trimmed = candidate.trim();
+      if (trimmed.equals("*") || trimmed.equals(etag) || trimmed.equals("W/" + etag)) {
+        return true;
+      }
+    }
+    return false;
+  }
 
-    // Send the JSON back as the response
-    response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+  /**
+   * @return the request parameter as an int, or the default value if the parameter
+   *         was not specified by the client
+   */
+  private static int getRequestParameterOrDefault(
+      HttpServletRequest request, String name, int defaultValue) {
+    String value = request.getParameter(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    return Integer.parseInt(value);
   }
 }
@@ -0,0 +1,45 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonObject;
+import com.google.sps.QueryCache;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports how well the shared query cache is doing, so its capacity can be sized.
+ */
+@WebServlet("/query-cache-stats")
+public class QueryCacheStatsServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    QueryCache queryCache = CalendarContextListener.getQueryCache(getServletContext());
+
+    JsonObject stats = new JsonObject();
+    stats.addProperty("size", queryCache.size());
+    stats.addProperty("hits", queryCache.getHits());
+    stats.addProperty("misses", queryCache.getMisses());
+    stats.addProperty("hitRate", queryCache.getHitRate());
+    stats.addProperty("invalidations", queryCache.getInvalidations());
+    stats.addProperty("evictions", queryCache.getEvictions());
+
+    response.setContentType("application/json");
+    response.getWriter().println(stats);
+  }
+}
@@ -14,14 +14,18 @@
 
 package com.google.sps.servlets;
 
-import com.google.gson.Gson;
-import com.google.sps.Events;
-import com.google.sps.FindMeetingQuery;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.BusyTimes;
 import com.google.sps.MeetingRequest;
+import com.google.sps.QueryCache;
+import com.google.sps.QueryMetrics;
+import com.google.sps.RankedSlot;
+import com.google.sps.SlotRanker;
 import com.google.sps.TimeRange;
 import java.io.IOException;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -29,23 +33,95 @@ import javax.servlet.http.HttpServletResponse;
 
 @WebServlet("/query")
 public class QueryServlet extends HttpServlet {
+  private BusyTimes index;
+  private QueryCache queryCache;
+  private QueryMetrics metrics;
+
+  @Override
+  public void init() {
+    // Each query only looks up the attendees it names in the shared index.
+    index = CalendarContextListener.getBusyTimes(getServletContext());
+    // The form re-sends the same request often, so answers are reused until a calendar changes.
+    queryCache = CalendarContextListener.getQueryCache(getServletContext());
+    metrics = CalendarContextListener.getQueryMetrics(getServletContext());
+  }
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
-    Gson gson = new Gson();
+    long start = System.nanoTime();
 
     // Convert the JSON to an instance of MeetingRequest.
-    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    MeetingRequest meetingRequest =
+        CalendarJson.GSON.fromJson(request.getReader(), MeetingRequest.class);
+    long parsed = System.nanoTime();
+    metrics.recordPhase(QueryMetrics.Phase.PARSE, parsed - start);
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a meeting request");
+      return;
+    }
+    try {
+      meetingRequest.validate();
+    } catch (IllegalArgumentException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+      return;
+    }
 
-    // Find the possible meeting times.
-    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
+    // Find the possible meeting times, or only the best few if the client asked for them.
+    Collection<TimeRange> answer;
+    String top = request.getParameter("top");
+    if (top == null) {
+      answer = queryCache.query(meetingRequest);
+    } else {
+      int k;
+      int preferredStart;
+      try {
+        k = Integer.parseInt(top);
+        preferredStart =
+            getRequestParameterOrDefault(request, "preferredStart", TimeRange.START_OF_DAY);
+      } catch (NumberFormatException e) {
+        response.sendError(
+            HttpServletResponse.SC_BAD_REQUEST, "top and preferredStart must be integers");
+        return;
+      }
+      if (k <= 0) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "top must be positive");
+        return;
+      }
+      // Asking for more slots than a person would ever read only costs memory.
+      answer = rankedTimes(meetingRequest, Math.min(k, SlotRanker.MAX_K), preferredStart);
+    }
+    long answered = System.nanoTime();
+    metrics.recordPhase(QueryMetrics.Phase.CACHE, answered - parsed);
 
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+    // Stream the times back as JSON.
+    try (JsonWriter writer = CalendarJson.startResponse(request, response)) {
+      CalendarJson.writeTimeRanges(writer, answer);
+    }
+    long written = System.nanoTime();
+    metrics.recordPhase(QueryMetrics.Phase.WRITE, written - answered);
+    metrics.recordRequest("/query", written - start);
+  }
+
+  private List<TimeRange> rankedTimes(MeetingRequest meetingRequest, int k, int preferredStart) {
+    List<RankedSlot> slots =
+        new SlotRanker(preferredStart).topK(index, meetingRequest, TimeRange.WHOLE_DAY, k);
+    List<TimeRange> times = new ArrayList<>(slots.size());
+    for (RankedSlot slot : slots) {
+      times.add(slot.getWhen());
+    }
+    return times;
+  }
 
-    // Send the JSON back as the response
-    response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+  /**
+   * @return the request parameter as an int, or the default value if the parameter
+   *         was not specified by the client
+   */
+  private static int getRequestParameterOrDefault(
+      HttpServletRequest request, String name, int defaultValue) {
+    String value = request.getParameter(name);
+    if (value == null) {
+      return defaultValue;
+    }
+    return Integer.parseInt(value);
   }
 }
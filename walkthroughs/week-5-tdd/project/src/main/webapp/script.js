@@ -30,10 +30,13 @@ function sendMeetingRequest() {
   // split it into an array of names
   const optionalAttendees = optionalAttendeesNamesString.split(/\s*,\s*/);
 
+  // minutes everyone needs free around the meeting, none if left empty
+  const buffer = document.getElementById('buffer').value || 0;
+
   // Create the request to send to the server using the data we collected from
   // the web form.
   const meetingRequest =
-      new MeetingRequest(duration, attendees, optionalAttendees);
+      new MeetingRequest(duration, attendees, optionalAttendees, {}, [], buffer);
 
   queryServer(meetingRequest).then((timeRanges) => {
     updateResultsOnPage(timeRanges);
@@ -94,10 +97,22 @@ function timeToString(totalMinutes) {
  * Request for possible meeting times.
  */
 class MeetingRequest {
-  constructor(duration, attendees, optional_attendees) {
+  /**
+   * The working hours map each attendee to the time ranges they can meet in.
+   * The preferred windows are time ranges the organizer would rather meet in.
+   * The buffer is the minutes everyone needs free before and after the meeting.
+   * The room capacity is how many people the meeting room must seat.
+   */
+  constructor(
+      duration, attendees, optional_attendees, working_hours = {},
+      preferred_windows = [], buffer = 0, room_capacity = 0) {
     this.duration = duration;
     this.attendees = attendees;
     this.optional_attendees = optional_attendees;
+    this.working_hours = working_hours;
+    this.preferred_windows = preferred_windows;
+    this.buffer = buffer;
+    this.room_capacity = room_capacity;
   }
 }
 
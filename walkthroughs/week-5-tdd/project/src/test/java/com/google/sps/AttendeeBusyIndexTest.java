@@ -0,0 +1,195 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeBusyIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  @Test
+  public void unknownAttendeeIsFree() {
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Collections.<Event>emptyList());
+
+    Assert.assertEquals(Arrays.asList(), index.getBusyTimes(PERSON_A));
+  }
+
+  @Test
+  public void overlappingAndTouchingEventsAreMerged() {
+    // Events : |--A--|
+    //             |--A--|
+    //                   |--A--|      |--B--|
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A, PERSON_B))));
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false)),
+        index.getBusyTimes(PERSON_A));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false)),
+        index.getBusyTimes(PERSON_B));
+  }
+
+  @Test
+  public void addAndRemoveEvents() {
+    Event early = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+        Arrays.asList(PERSON_A));
+    Event bridge = new Event("Event 2", TimeRange.fromStartEnd(TIME_0830AM, TIME_0930AM, false),
+        Arrays.asList(PERSON_A));
+    Event late = new Event("Event 3", TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false),
+        Arrays.asList(PERSON_A));
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Arrays.asList(early, late));
+
+    index.add(bridge);
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false)),
+        index.getBusyTimes(PERSON_A));
+
+    index.remove(bridge);
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0830AM, false),
+                            TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false)),
+        index.getBusyTimes(PERSON_A));
+
+    index.remove(early);
+    index.remove(late);
+    Assert.assertEquals(Arrays.asList(), index.getBusyTimes(PERSON_A));
+  }
+
+  @Test
+  public void onlyChangedAttendeesGetNewVersions() {
+    Event shared = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A, PERSON_B));
+    Event justA = new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+        Arrays.asList(PERSON_A));
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Arrays.asList(shared));
+    long versionA = index.getVersion(PERSON_A);
+    long versionB = index.getVersion(PERSON_B);
+
+    index.add(justA);
+
+    Assert.assertNotEquals(versionA, index.getVersion(PERSON_A));
+    Assert.assertEquals(versionB, index.getVersion(PERSON_B));
+  }
+
+  @Test
+  public void recurringEventsAreExpandedPerWindow() {
+    Event standup = new Event("Standup", TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+        Arrays.asList(PERSON_A), Recurrence.daily());
+    Event oneOff = new Event("Event 1", TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false),
+        Arrays.asList(PERSON_A));
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Arrays.asList(standup, oneOff));
+    TimeRange dayTwo = TimeRange.fromStartDuration(Recurrence.DAY, Recurrence.DAY);
+
+    // On the first day the standup touches the other event, so the two are merged.
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)),
+        index.getBusyTimes(PERSON_A, TimeRange.WHOLE_DAY));
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(
+            Recurrence.DAY + TIME_0900AM, Recurrence.DAY + TIME_0930AM, false)),
+        index.getBusyTimes(PERSON_A, dayTwo));
+
+    long version = index.getVersion(PERSON_A);
+    index.remove(standup);
+
+    Assert.assertNotEquals(version, index.getVersion(PERSON_A));
+    Assert.assertEquals(Arrays.asList(), index.getBusyTimes(PERSON_A, dayTwo));
+  }
+
+  @Test
+  public void removingAnUnknownEventDoesNothing() {
+    Event event = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+    Event unknown = new Event("Event 2", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Arrays.asList(event));
+
+    index.remove(unknown);
+
+    Assert.assertEquals(Arrays.asList(event.getWhen()), index.getBusyTimes(PERSON_A));
+  }
+
+  @Test
+  public void incrementalChangesMatchARebuiltIndex() {
+    Random random = new Random(2019);
+    String[] people = {PERSON_A, PERSON_B, "Person C"};
+    List<Event> live = new ArrayList<>();
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Collections.<Event>emptyList());
+
+    for (int i = 0; i < 500; i++) {
+      if (!live.isEmpty() && random.nextInt(3) == 0) {
+        index.remove(live.remove(random.nextInt(live.size())));
+      } else {
+        int start = random.nextInt(TimeRange.WHOLE_DAY.duration() - 60);
+        Event event = new Event("Event " + i,
+            TimeRange.fromStartDuration(start, 1 + random.nextInt(60)),
+            Arrays.asList(people[random.nextInt(people.length)], people[random.nextInt(2)]));
+        live.add(event);
+        index.add(event);
+      }
+
+      AttendeeBusyIndex rebuilt = AttendeeBusyIndex.of(live);
+      for (String person : people) {
+        Assert.assertEquals(rebuilt.getBusyTimes(person), index.getBusyTimes(person));
+      }
+    }
+  }
+
+  @Test
+  public void splicedBusyTimesMatchAFreshMerge() {
+    // Ranges on a short stretch of the day, on whole quarter hours, so that most changes overlap,
+    // touch, duplicate or split ranges that are already there.
+    Random random = new Random(2020);
+    List<Event> live = new ArrayList<>();
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Collections.<Event>emptyList());
+
+    for (int i = 0; i < 1000; i++) {
+      if (!live.isEmpty() && random.nextInt(2) == 0) {
+        index.remove(live.remove(random.nextInt(live.size())));
+      } else {
+        int start = 15 * random.nextInt(16);
+        Event event = new Event("Event " + i,
+            TimeRange.fromStartDuration(start, 15 * (1 + random.nextInt(4))),
+            Arrays.asList(PERSON_A));
+        live.add(event);
+        index.add(event);
+      }
+
+      IntervalBuffer expected = new IntervalBuffer();
+      for (Event event : live) {
+        expected.add(event.getWhen());
+      }
+      Assert.assertEquals(expected.merge().toTimeRanges(), index.getBusyTimes(PERSON_A));
+    }
+  }
+}
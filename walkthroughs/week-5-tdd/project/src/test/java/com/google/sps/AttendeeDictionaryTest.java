@@ -0,0 +1,65 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeDictionaryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  @Test
+  public void idsAreDenseAndStable() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+
+    Assert.assertEquals(0, dictionary.intern(PERSON_A));
+    Assert.assertEquals(1, dictionary.intern(PERSON_B));
+    Assert.assertEquals(0, dictionary.intern(PERSON_A));
+    Assert.assertEquals(2, dictionary.size());
+    Assert.assertEquals(PERSON_B, dictionary.nameOf(1));
+  }
+
+  @Test
+  public void unknownNamesHaveNoId() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    dictionary.intern(PERSON_A);
+
+    int[] actual = dictionary.idsOf(Arrays.asList(PERSON_C, PERSON_A));
+
+    Assert.assertArrayEquals(new int[] {AttendeeDictionary.NO_ID, 0}, actual);
+    Assert.assertEquals(1, dictionary.size());
+  }
+
+  @Test
+  public void indexSharesItsDictionary() {
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    dictionary.intern(PERSON_C);
+    AttendeeBusyIndex index = new AttendeeBusyIndex(dictionary);
+    TimeRange when = TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(9, 0), 30);
+
+    index.add(new Event("Event 1", when, Arrays.asList(PERSON_A)));
+
+    Assert.assertEquals(1, dictionary.idOf(PERSON_A));
+    Assert.assertEquals(Arrays.asList(when), index.getBusyTimes(1));
+    Assert.assertEquals(Arrays.asList(), index.getBusyTimes(AttendeeDictionary.NO_ID));
+  }
+}
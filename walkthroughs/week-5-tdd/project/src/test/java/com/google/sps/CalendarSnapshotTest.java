@@ -0,0 +1,145 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarSnapshotTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  @Test
+  public void eventsSurviveARoundTrip() throws IOException {
+    // Starts out of order and an event before midnight check the delta encoding.
+    List<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_B, PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(-30, 60), Arrays.asList(PERSON_C)),
+        new Event("Ünïcødé", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.<String>asList()));
+
+    CalendarSnapshot snapshot = snapshotOf(events);
+
+    Assert.assertEquals(3, snapshot.getEventCount());
+    Assert.assertEquals(Arrays.asList(events.get(1), events.get(2), events.get(0)),
+        snapshot.getEvents());
+  }
+
+  @Test
+  public void busyTimesMatchTheIndex() throws IOException {
+    List<Event> events = randomEvents(new Random(7), 300);
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(events);
+
+    CalendarSnapshot snapshot = snapshotOf(events);
+
+    for (String attendee : Arrays.asList(PERSON_A, PERSON_B, PERSON_C, "Nobody")) {
+      Assert.assertEquals(index.getBusyTimes(attendee), snapshot.getBusyTimes(attendee));
+      TimeRange window = TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false);
+      Assert.assertEquals(
+          index.getBusyTimes(attendee, window), snapshot.getBusyTimes(attendee, window));
+    }
+  }
+
+  @Test
+  public void meetingsFoundFromTheSnapshotMatchTheIndex() throws IOException {
+    Random random = new Random(11);
+    List<Event> events = randomEvents(random, 60);
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(events);
+    CalendarSnapshot snapshot = snapshotOf(events);
+    FindMeetingQuery query = new FindMeetingQuery(FindMeetingQuery.Mode.SWEEP);
+
+    for (int i = 0; i < 50; i++) {
+      MeetingRequest request =
+          new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 15 + random.nextInt(120));
+      request.addOptionalAttendee(PERSON_C);
+
+      Assert.assertEquals(query.query(index, request), query.query(snapshot, request));
+    }
+  }
+
+  @Test
+  public void catalogPagesMatchACatalogOfTheDecodedEvents() throws IOException {
+    CalendarSnapshot snapshot = snapshotOf(randomEvents(new Random(13), 200));
+    EventCatalog decoded = EventCatalog.of(snapshot.getEvents());
+
+    EventCatalog inPlace = EventCatalog.of(snapshot);
+
+    Assert.assertEquals(decoded.size(), inPlace.size());
+    TimeRange window = TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false);
+    for (String attendee : Arrays.asList(null, PERSON_A, PERSON_C, "Nobody")) {
+      for (TimeRange filter : Arrays.asList(null, window)) {
+        int cursor = 0;
+        while (cursor != EventCatalog.Page.NO_CURSOR) {
+          EventCatalog.Page expected = decoded.page(attendee, filter, cursor, 7);
+          EventCatalog.Page actual = inPlace.page(attendee, filter, cursor, 7);
+          Assert.assertEquals(expected.getEvents(), actual.getEvents());
+          Assert.assertEquals(expected.getNextCursor(), actual.getNextCursor());
+          cursor = actual.getNextCursor();
+        }
+      }
+    }
+  }
+
+  @Test
+  public void rejectsOtherData() {
+    try {
+      CalendarSnapshot.wrap(ByteBuffer.wrap(new byte[64]));
+      Assert.fail("expected an IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // Expected.
+    }
+  }
+
+  private static CalendarSnapshot snapshotOf(List<Event> events) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CalendarSnapshot.write(events, out);
+    return CalendarSnapshot.wrap(ByteBuffer.wrap(out.toByteArray()));
+  }
+
+  private static List<Event> randomEvents(Random random, int count) {
+    List<String> people = Arrays.asList(PERSON_A, PERSON_B, PERSON_C);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      List<String> attendees = new ArrayList<>();
+      for (String person : people) {
+        if (random.nextInt(3) == 0) {
+          attendees.add(person);
+        }
+      }
+      int start = random.nextInt(TimeRange.END_OF_DAY - 60);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, 1 + random.nextInt(60)),
+          attendees));
+    }
+    return events;
+  }
+}
@@ -0,0 +1,81 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class DayBitmapTest {
+  @Test
+  public void addMarksRangeAcrossWords() {
+    // 60 to 130 spans three 64-bit words.
+    DayBitmap bitmap = new DayBitmap().add(TimeRange.fromStartEnd(60, 130, false));
+
+    Assert.assertFalse(bitmap.isBusy(59));
+    Assert.assertTrue(bitmap.isBusy(60));
+    Assert.assertTrue(bitmap.isBusy(64));
+    Assert.assertTrue(bitmap.isBusy(129));
+    Assert.assertFalse(bitmap.isBusy(130));
+    Assert.assertEquals(70, bitmap.busyMinutes());
+  }
+
+  @Test
+  public void wholeDay() {
+    DayBitmap bitmap = new DayBitmap().add(TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(TimeRange.WHOLE_DAY.duration(), bitmap.busyMinutes());
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), bitmap.busyRanges());
+    Assert.assertEquals(Arrays.asList(), bitmap.freeRanges(1));
+  }
+
+  @Test
+  public void emptyDayIsOneFreeRange() {
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), new DayBitmap().freeRanges(1));
+  }
+
+  @Test
+  public void combine() {
+    // a: |----|
+    // b:    |----|
+    DayBitmap a = new DayBitmap().add(TimeRange.fromStartEnd(100, 200, false));
+    DayBitmap b = new DayBitmap().add(TimeRange.fromStartEnd(150, 250, false));
+
+    DayBitmap or = new DayBitmap().or(a).or(b);
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(100, 250, false)), or.busyRanges());
+
+    DayBitmap and = new DayBitmap().or(a).and(b);
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartEnd(150, 200, false)), and.busyRanges());
+
+    DayBitmap andNot = new DayBitmap().or(a).andNot(b);
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(100, 150, false)), andNot.busyRanges());
+  }
+
+  @Test
+  public void freeRangesSkipShortGaps() {
+    DayBitmap bitmap = new DayBitmap()
+                           .add(TimeRange.fromStartEnd(0, 100, false))
+                           .add(TimeRange.fromStartEnd(110, 1000, false));
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(1000, TimeRange.END_OF_DAY, true)),
+        bitmap.freeRanges(30));
+  }
+}
@@ -0,0 +1,172 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventCatalogTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+
+  private static final int DURATION_1_HOUR = 60;
+
+  private static final Event LONG_A = new Event("Event 1",
+      TimeRange.fromStartEnd(TIME_0800AM, TIME_1100AM, false), Arrays.asList(PERSON_A));
+  private static final Event MORNING_B = new Event("Event 2",
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR), Arrays.asList(PERSON_B));
+  private static final Event LATE_AB = new Event("Event 3",
+      TimeRange.fromStartDuration(TIME_1000AM, DURATION_1_HOUR), Arrays.asList(PERSON_A, PERSON_B));
+  private static final Event NOON_A = new Event("Event 4",
+      TimeRange.fromStartDuration(TIME_1200PM, DURATION_1_HOUR), Arrays.asList(PERSON_A));
+
+  private static final EventCatalog CATALOG =
+      EventCatalog.of(Arrays.asList(NOON_A, LATE_AB, MORNING_B, LONG_A));
+
+  @Test
+  public void everythingInStartOrder() {
+    EventCatalog.Page page = CATALOG.page(null, null, 0, Integer.MAX_VALUE);
+
+    Assert.assertEquals(Arrays.asList(LONG_A, MORNING_B, LATE_AB, NOON_A), page.getEvents());
+    Assert.assertEquals(EventCatalog.Page.NO_CURSOR, page.getNextCursor());
+  }
+
+  @Test
+  public void filterByAttendee() {
+    EventCatalog.Page page = CATALOG.page(PERSON_B, null, 0, Integer.MAX_VALUE);
+
+    Assert.assertEquals(Arrays.asList(MORNING_B, LATE_AB), page.getEvents());
+  }
+
+  @Test
+  public void windowIncludesEventsThatStartedEarlier() {
+    // LONG_A starts before the window but is still going on at 10:30.
+    TimeRange window = TimeRange.fromStartDuration(TIME_1000AM + 30, 30);
+
+    EventCatalog.Page page = CATALOG.page(PERSON_A, window, 0, Integer.MAX_VALUE);
+
+    Assert.assertEquals(Arrays.asList(LONG_A, LATE_AB), page.getEvents());
+  }
+
+  @Test
+  public void pagesCoverEveryMatchOnce() {
+    List<Event> seen = new ArrayList<>();
+    int cursor = 0;
+    int pages = 0;
+    while (cursor != EventCatalog.Page.NO_CURSOR) {
+      EventCatalog.Page page = CATALOG.page(PERSON_A, null, cursor, 2);
+      seen.addAll(page.getEvents());
+      cursor = page.getNextCursor();
+      pages++;
+    }
+
+    Assert.assertEquals(Arrays.asList(LONG_A, LATE_AB, NOON_A), seen);
+    Assert.assertEquals(2, pages);
+  }
+
+  @Test
+  public void unknownAttendeeHasNoEvents() {
+    EventCatalog.Page page = CATALOG.page("Nobody", null, 0, 10);
+
+    Assert.assertEquals(Arrays.asList(), page.getEvents());
+    Assert.assertEquals(EventCatalog.Page.NO_CURSOR, page.getNextCursor());
+  }
+
+  @Test
+  public void windowMatchesAFullScan() {
+    // One all-day event among many short ones, so that the longest event is no help in finding
+    // where a window's events start.
+    Random random = new Random(2019);
+    List<Event> events = new ArrayList<>();
+    events.add(new Event("All day", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)));
+    for (int i = 0; i < 200; i++) {
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(
+          random.nextInt(TimeRange.END_OF_DAY - 60), random.nextInt(60)), Arrays.asList(PERSON_B)));
+    }
+    EventCatalog catalog = EventCatalog.of(events);
+
+    for (int start = 0; start < TimeRange.END_OF_DAY; start += 37) {
+      TimeRange window = TimeRange.fromStartDuration(start, 45);
+      List<Event> expected = new ArrayList<>();
+      for (Event event : catalog.page(null, null, 0, Integer.MAX_VALUE).getEvents()) {
+        if (window.overlaps(event.getWhen())) {
+          expected.add(event);
+        }
+      }
+
+      List<Event> actual = new ArrayList<>();
+      int cursor = 0;
+      while (cursor != EventCatalog.Page.NO_CURSOR) {
+        EventCatalog.Page page = catalog.page(null, window, cursor, 3);
+        actual.addAll(page.getEvents());
+        cursor = page.getNextCursor();
+      }
+      Assert.assertEquals(expected, actual);
+    }
+  }
+
+  @Test
+  public void revisionFollowsTheEvents() {
+    EventCatalog reordered = EventCatalog.of(Arrays.asList(LONG_A, MORNING_B, LATE_AB, NOON_A));
+    EventCatalog fewer = EventCatalog.of(Arrays.asList(LONG_A, MORNING_B, LATE_AB));
+
+    Assert.assertEquals(CATALOG.getRevision(), reordered.getRevision());
+    Assert.assertNotEquals(CATALOG.getRevision(), fewer.getRevision());
+  }
+
+  @Test
+  public void windowListsEachOccurrenceOfRecurringEvents() {
+    // A daily standup that started two days before the window, next to a one-off event that starts
+    // at the same time as one of its occurrences.
+    Event standup = new Event("Standup", TimeRange.fromStartDuration(TIME_0900AM, 15),
+        Arrays.asList(PERSON_A), Recurrence.daily());
+    TimeRange secondDay = TimeRange.fromStartDuration(2 * Recurrence.DAY + TIME_0900AM, 60);
+    Event clash = new Event("Clash", secondDay, Arrays.asList(PERSON_A));
+    Event other = new Event("Other", TimeRange.fromStartDuration(2 * Recurrence.DAY + TIME_1000AM,
+        DURATION_1_HOUR), Arrays.asList(PERSON_B));
+    EventCatalog catalog = EventCatalog.of(Arrays.asList(standup, clash, other));
+    TimeRange window = TimeRange.fromStartDuration(2 * Recurrence.DAY, 2 * Recurrence.DAY);
+
+    List<Event> seen = new ArrayList<>();
+    int cursor = 0;
+    while (cursor != EventCatalog.Page.NO_CURSOR) {
+      EventCatalog.Page page = catalog.page(PERSON_A, window, cursor, 1);
+      seen.addAll(page.getEvents());
+      cursor = page.getNextCursor();
+    }
+
+    Assert.assertEquals(Arrays.asList(clash,
+        new Event("Standup", TimeRange.fromStartDuration(2 * Recurrence.DAY + TIME_0900AM, 15),
+            Arrays.asList(PERSON_A)),
+        new Event("Standup", TimeRange.fromStartDuration(3 * Recurrence.DAY + TIME_0900AM, 15),
+            Arrays.asList(PERSON_A))), seen);
+    Assert.assertEquals(Arrays.asList(standup, clash),
+        catalog.page(PERSON_A, null, 0, Integer.MAX_VALUE).getEvents());
+  }
+}
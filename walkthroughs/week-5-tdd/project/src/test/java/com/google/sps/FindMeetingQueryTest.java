@@ -23,10 +23,12 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.junit.runners.JUnit4;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
 
-/** */
-@RunWith(JUnit4.class)
+/** Runs every case against each {@link FindMeetingQuery.Mode}, with and without an index. */
+@RunWith(Parameterized.class)
 public final class FindMeetingQueryTest {
   private static final Collection<Event> NO_EVENTS = Collections.emptySet();
   private static final Collection<String> NO_ATTENDEES = Collections.emptySet();
@@ -57,18 +59,45 @@ public final class FindMeetingQueryTest {
   private static final int DURATION_1_HOUR = 60;
   private static final int DURATION_2_HOUR = 120;
 
+  @Parameters(name = "{0} indexed={1}")
+  public static Collection<Object[]> modes() {
+    List<Object[]> modes = new ArrayList<>();
+    for (FindMeetingQuery.Mode mode : FindMeetingQuery.Mode.values()) {
+      modes.add(new Object[] {mode, false});
+      if (mode != FindMeetingQuery.Mode.SCAN) {
+        modes.add(new Object[] {mode, true});
+      }
+    }
+    return modes;
+  }
+
+  @Parameter(0)
+  public FindMeetingQuery.Mode mode;
+
+  // Whether the events are handed to the query through an AttendeeBusyIndex.
+  @Parameter(1)
+  public boolean indexed;
+
   private FindMeetingQuery query;
 
   @Before
   public void setUp() {
-    query = new FindMeetingQuery();
+    query = new FindMeetingQuery(mode);
+  }
+
+  private Collection<TimeRange> findMeetingTimes(
+      Collection<Event> events, MeetingRequest request) {
+    if (indexed) {
+      return query.query(AttendeeBusyIndex.of(events), request);
+    }
+    return query.query(events, request);
   }
 
   @Test
   public void optionsForNoAttendees() {
     MeetingRequest request = new MeetingRequest(NO_ATTENDEES, DURATION_1_HOUR);
 
-    Collection<TimeRange> actual = query.query(NO_EVENTS, request);
+    Collection<TimeRange> actual = findMeetingTimes(NO_EVENTS, request);
     Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
 
     Assert.assertEquals(expected, actual);
@@ -80,7 +109,7 @@ public final class FindMeetingQueryTest {
     int duration = TimeRange.WHOLE_DAY.duration() + 1;
     MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), duration);
 
-    Collection<TimeRange> actual = query.query(NO_EVENTS, request);
+    Collection<TimeRange> actual = findMeetingTimes(NO_EVENTS, request);
     Collection<TimeRange> expected = Arrays.asList();
 
     Assert.assertEquals(expected, actual);
@@ -94,7 +123,7 @@ public final class FindMeetingQueryTest {
 
     MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
             TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
@@ -120,7 +149,7 @@ public final class FindMeetingQueryTest {
     MeetingRequest request =
         new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
             TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
@@ -147,7 +176,7 @@ public final class FindMeetingQueryTest {
     MeetingRequest request =
         new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
             TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
@@ -174,7 +203,7 @@ public final class FindMeetingQueryTest {
     MeetingRequest request =
         new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
             TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
@@ -199,7 +228,7 @@ public final class FindMeetingQueryTest {
 
     MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
             TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
@@ -224,7 +253,7 @@ public final class FindMeetingQueryTest {
 
     MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES));
 
@@ -239,7 +268,7 @@ public final class FindMeetingQueryTest {
         TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), Arrays.asList(PERSON_A)));
     MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
 
     Assert.assertEquals(expected, actual);
@@ -250,7 +279,7 @@ public final class FindMeetingQueryTest {
     MeetingRequest request =
         new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
 
-    Collection<TimeRange> actual = query.query(NO_EVENTS, request);
+    Collection<TimeRange> actual = findMeetingTimes(NO_EVENTS, request);
     Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
 
     Assert.assertEquals(expected, actual);
@@ -273,7 +302,7 @@ public final class FindMeetingQueryTest {
 
     MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected = Arrays.asList();
 
     Assert.assertEquals(expected, actual);
@@ -296,7 +325,7 @@ public final class FindMeetingQueryTest {
 
     MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
             TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
@@ -322,7 +351,7 @@ public final class FindMeetingQueryTest {
     MeetingRequest request =
         new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
             TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
@@ -350,7 +379,7 @@ public final class FindMeetingQueryTest {
     MeetingRequest request =
         new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B, PERSON_C), DURATION_30_MINUTES);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
             TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
@@ -380,7 +409,7 @@ public final class FindMeetingQueryTest {
         new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
     request.addOptionalAttendee(PERSON_C);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
             TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
@@ -410,7 +439,7 @@ public final class FindMeetingQueryTest {
         new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
     request.addOptionalAttendee(PERSON_C);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
             TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
@@ -439,7 +468,7 @@ public final class FindMeetingQueryTest {
     MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
     request.addOptionalAttendee(PERSON_B);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES));
 
@@ -466,7 +495,7 @@ public final class FindMeetingQueryTest {
     request.addOptionalAttendee(PERSON_A);
     request.addOptionalAttendee(PERSON_B);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
             TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
@@ -497,7 +526,7 @@ public final class FindMeetingQueryTest {
     request.addOptionalAttendee(PERSON_A);
     request.addOptionalAttendee(PERSON_B);
 
-    Collection<TimeRange> actual = query.query(NO_EVENTS, request);
+    Collection<TimeRange> actual = findMeetingTimes(NO_EVENTS, request);
     Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
 
     Assert.assertEquals(expected, actual);
@@ -527,7 +556,7 @@ public final class FindMeetingQueryTest {
         new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B, PERSON_C), DURATION_30_MINUTES);
     request.addOptionalAttendee(PERSON_D);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
             TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
@@ -565,7 +594,7 @@ public final class FindMeetingQueryTest {
     request.addOptionalAttendee(PERSON_E);
     request.addOptionalAttendee(PERSON_F);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
             TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true));
@@ -602,7 +631,7 @@ public final class FindMeetingQueryTest {
     request.addOptionalAttendee(PERSON_E);
     request.addOptionalAttendee(PERSON_F);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
             TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
@@ -642,7 +671,7 @@ public final class FindMeetingQueryTest {
     request.addOptionalAttendee(PERSON_E);
     request.addOptionalAttendee(PERSON_F);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
             TimeRange.fromStartEnd(TIME_0945AM, TimeRange.END_OF_DAY, true));
@@ -682,7 +711,7 @@ public final class FindMeetingQueryTest {
     request.addOptionalAttendee(PERSON_E);
     request.addOptionalAttendee(PERSON_F);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
             TimeRange.fromStartEnd(TIME_0945AM, TimeRange.END_OF_DAY, true));
@@ -719,7 +748,7 @@ public final class FindMeetingQueryTest {
     request.addOptionalAttendee(PERSON_E);
     request.addOptionalAttendee(PERSON_F);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
             TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
@@ -751,7 +780,7 @@ public final class FindMeetingQueryTest {
     request.addOptionalAttendee(PERSON_B);
     request.addOptionalAttendee(PERSON_C);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false));
 
@@ -784,7 +813,7 @@ public final class FindMeetingQueryTest {
     request.addOptionalAttendee(PERSON_C);
     request.addOptionalAttendee(PERSON_D);
 
-    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
     Collection<TimeRange> expected =
         Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
             TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false),
@@ -792,4 +821,99 @@ public final class FindMeetingQueryTest {
 
     Assert.assertEquals(expected, actual);
   }
+
+  @Test
+  public void workingHoursLimitOptions() {
+    // Hours  : |-------A--------|
+    // Events :      |--A--|
+    // Day    : |-----------------------------|
+    // Options: |-1-|       |-2--|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setWorkingHours(
+        PERSON_A, Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1100AM, false)));
+
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TIME_1100AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void bufferKeepsTimeFreeAroundEvents() {
+    // Events :       |--A--|
+    // Buffer :    |--|     |--|
+    // Day    : |-----------------------------|
+    // Options: |-1|           |-----2--------|
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setBuffer(DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            TimeRange.fromStartEnd(TIME_1030AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void optionalAttendeeOutsideWorkingHoursIsUnavailable() {
+    // Only the hour Person B works lets them attend, so that is the only option.
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.setWorkingHours(
+        PERSON_B, Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)));
+
+    Collection<TimeRange> actual = findMeetingTimes(NO_EVENTS, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void recurringEventBlocksItsOccurrenceToday() {
+    // A daily event that started three days ago takes place from 9:00 to 9:30 today.
+    Collection<Event> events = Arrays.asList(
+        new Event("Standup", TimeRange.fromStartDuration(
+            TIME_0900AM - 3 * Recurrence.DAY, DURATION_30_MINUTES), Arrays.asList(PERSON_A),
+            Recurrence.daily()));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = findMeetingTimes(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void batchAnswersComeBackInRequestOrder() {
+    // Each request is answered as if it was made on its own.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+    List<MeetingRequest> requests = new ArrayList<>();
+    requests.add(new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES));
+    requests.add(new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES));
+    requests.add(new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_2_HOUR));
+
+    List<Collection<TimeRange>> actual = query.queryAll(AttendeeBusyIndex.of(events), requests);
+    List<Collection<TimeRange>> expected = new ArrayList<>();
+    for (MeetingRequest request : requests) {
+      expected.add(findMeetingTimes(events, request));
+    }
+
+    Assert.assertEquals(expected, actual);
+  }
 }
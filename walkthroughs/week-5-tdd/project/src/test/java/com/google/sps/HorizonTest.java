@@ -0,0 +1,130 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class HorizonTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final LocalDate JAN_1_2020 = LocalDate.of(2020, 1, 1);
+  private static final ZoneId UTC = ZoneOffset.UTC;
+
+  private static final int DURATION_1_HOUR = 60;
+  private static final int DURATION_1_DAY = 24 * 60;
+
+  @Test
+  public void daylightSavingDayIsShort() {
+    // Clocks in New York skipped from 2:00 to 3:00 on March 8th 2020.
+    TimeRange day = Horizon.days(LocalDate.of(2020, 3, 8), 1, ZoneId.of("America/New_York"));
+
+    Assert.assertEquals(23 * 60, day.duration());
+  }
+
+  @Test
+  public void searchesEveryDayOfTheHorizon() {
+    // Person A works 9:00 to 17:00 every day for two weeks, so the free times are the nights.
+    int days = 14;
+    List<Event> events = new ArrayList<>();
+    for (int day = 0; day < days; day++) {
+      events.add(new Event("Work", at(day, 9, 0, 8 * 60), Arrays.asList(PERSON_A)));
+    }
+    TimeRange horizon = Horizon.days(JAN_1_2020, days, UTC);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    Collection<TimeRange> actual =
+        new FindMeetingQuery().query(AttendeeBusyIndex.of(events), request, horizon);
+
+    List<TimeRange> expected = new ArrayList<>();
+    expected.add(TimeRange.fromStartEnd(horizon.start(), at(0, 9, 0, 0).start(), false));
+    for (int day = 0; day < days - 1; day++) {
+      expected.add(TimeRange.fromStartEnd(at(day, 17, 0, 0).start(), at(day + 1, 9, 0, 0).start(),
+          false));
+    }
+    expected.add(TimeRange.fromStartEnd(at(days - 1, 17, 0, 0).start(), horizon.end(), false));
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void meetingsCanBeLongerThanADay() {
+    // Person B is only busy on the second day, so a full day meeting fits on the first and third.
+    List<Event> events = Arrays.asList(
+        new Event("Offsite", at(1, 0, 0, DURATION_1_DAY), Arrays.asList(PERSON_B)));
+    TimeRange horizon = Horizon.days(JAN_1_2020, 3, UTC);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_1_DAY);
+
+    Collection<TimeRange> actual =
+        new FindMeetingQuery().query(AttendeeBusyIndex.of(events), request, horizon);
+    Collection<TimeRange> expected = Arrays.asList(at(0, 0, 0, DURATION_1_DAY),
+        at(2, 0, 0, DURATION_1_DAY));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void recurringEventsBlockEveryDay() {
+    // A daily standup that started long before the horizon blocks 9:00 to 9:30 on every day.
+    int days = 21;
+    Event standup = new Event("Standup", at(-365, 9, 0, 30), Arrays.asList(PERSON_A),
+        Recurrence.daily());
+    TimeRange horizon = Horizon.days(JAN_1_2020, days, UTC);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    Collection<TimeRange> actual = new FindMeetingQuery().query(
+        AttendeeBusyIndex.of(Arrays.asList(standup)), request, horizon);
+
+    Assert.assertEquals(days + 1, actual.size());
+    for (TimeRange free : actual) {
+      for (int day = 0; day < days; day++) {
+        Assert.assertFalse(free.overlaps(at(day, 9, 0, 30)));
+      }
+    }
+  }
+
+  @Test
+  public void eventsOutsideTheHorizonAreIgnored() {
+    List<Event> events = Arrays.asList(
+        new Event("Before", at(-1, 10, 0, DURATION_1_HOUR), Arrays.asList(PERSON_A)),
+        new Event("After", at(1, 10, 0, DURATION_1_HOUR), Arrays.asList(PERSON_A)));
+    TimeRange horizon = Horizon.days(JAN_1_2020, 1, UTC);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    Collection<TimeRange> actual =
+        new FindMeetingQuery().query(AttendeeBusyIndex.of(events), request, horizon);
+
+    Assert.assertEquals(Arrays.asList(horizon), actual);
+  }
+
+  /** Returns a range in epoch minutes starting {@code day} days after January 1st 2020 UTC. */
+  private static TimeRange at(int day, int hour, int minute, int duration) {
+    int start = Horizon.toEpochMinute(
+        JAN_1_2020.plusDays(day).atTime(LocalTime.of(hour, minute)).toInstant(ZoneOffset.UTC));
+    return TimeRange.fromStartDuration(start, duration);
+  }
+}
@@ -0,0 +1,95 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalBufferTest {
+  @Test
+  public void mergeCombinesOverlappingAndTouchingIntervals() {
+    IntervalBuffer buffer = new IntervalBuffer()
+                                .add(300, 400)
+                                .add(100, 200)
+                                .add(150, 250)
+                                .add(250, 260)
+                                .add(500, 500);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(100, 260, false), TimeRange.fromStartEnd(300, 400, false)),
+        buffer.merge().toTimeRanges());
+  }
+
+  @Test
+  public void sortMatchesTimeRangeOrder() {
+    Random random = new Random(2019);
+    List<TimeRange> ranges = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      int start = random.nextInt(2000) - 1000;
+      ranges.add(TimeRange.fromStartDuration(start, 1 + random.nextInt(100)));
+    }
+    List<TimeRange> actual = IntervalBuffer.of(ranges).sort().toTimeRanges();
+
+    Collections.sort(ranges, TimeRange.ORDER_BY_START);
+    for (int i = 0; i < ranges.size(); i++) {
+      Assert.assertEquals(ranges.get(i).start(), actual.get(i).start());
+    }
+  }
+
+  @Test
+  public void intersect() {
+    // a: |------|   |------|
+    // b:    |---------|
+    IntervalBuffer a = new IntervalBuffer().add(0, 100).add(200, 300);
+    IntervalBuffer b = new IntervalBuffer().add(50, 250);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(50, 100, false), TimeRange.fromStartEnd(200, 250, false)),
+        a.intersect(b).toTimeRanges());
+  }
+
+  @Test
+  public void subtractSplitsIntervals() {
+    // a: |-----------------|
+    // b:    |--|     |--|      |--|
+    IntervalBuffer a = new IntervalBuffer().add(0, 100);
+    IntervalBuffer b = new IntervalBuffer().add(10, 20).add(50, 60).add(150, 160);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(0, 10, false), TimeRange.fromStartEnd(20, 50, false),
+            TimeRange.fromStartEnd(60, 100, false)),
+        a.subtract(b).toTimeRanges());
+  }
+
+  @Test
+  public void removeShorterThan() {
+    IntervalBuffer buffer = new IntervalBuffer().add(0, 10).add(20, 50).add(60, 65);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(20, 50, false)),
+        buffer.removeShorterThan(30).toTimeRanges());
+  }
+}
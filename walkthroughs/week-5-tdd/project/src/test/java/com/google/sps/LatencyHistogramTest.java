@@ -0,0 +1,86 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class LatencyHistogramTest {
+  @Test
+  public void emptyHistogramReportsZero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    Assert.assertEquals(0, histogram.getCount());
+    Assert.assertEquals(0, histogram.getValueAtPercentile(99));
+  }
+
+  @Test
+  public void smallValuesAreExact() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long value = 1; value <= 50; value++) {
+      histogram.record(value);
+    }
+
+    Assert.assertEquals(50, histogram.getCount());
+    Assert.assertEquals(1275, histogram.getSum());
+    Assert.assertEquals(25, histogram.getValueAtPercentile(50));
+    Assert.assertEquals(50, histogram.getValueAtPercentile(100));
+  }
+
+  @Test
+  public void percentilesAreWithinThreePercent() {
+    // One value per microsecond from 1us to 10ms.
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long micros = 1; micros <= 10_000; micros++) {
+      histogram.record(micros * 1000);
+    }
+
+    for (double percentile : new double[] {50, 90, 99, 99.9}) {
+      double expected = percentile * 100 * 1000;
+      double actual = histogram.getValueAtPercentile(percentile);
+      Assert.assertEquals(expected, actual, expected * 0.03);
+    }
+  }
+
+  @Test
+  public void bucketsCoverEveryValue() {
+    long[] values = {0, 31, 32, 63, 64, 65, 1000, 123_456_789, Long.MAX_VALUE};
+    for (long value : values) {
+      int bucket = LatencyHistogram.bucketOf(value);
+      Assert.assertTrue(value <= LatencyHistogram.highestValueIn(bucket));
+      if (bucket > 0) {
+        Assert.assertTrue(value > LatencyHistogram.highestValueIn(bucket - 1));
+      }
+    }
+  }
+
+  @Test
+  public void negativeValuesAreRecordedAsZero() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(-5);
+
+    Assert.assertEquals(0, histogram.getSum());
+    Assert.assertEquals(0, histogram.getValueAtPercentile(50));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void percentileAboveOneHundredIsRejected() {
+    new LatencyHistogram().getValueAtPercentile(101);
+  }
+}
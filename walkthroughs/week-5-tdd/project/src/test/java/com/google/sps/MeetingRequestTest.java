@@ -14,6 +14,7 @@
 
 package com.google.sps;
 
+import com.google.gson.Gson;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -44,4 +45,60 @@ public final class MeetingRequestTest {
     int expected = 0;
     Assert.assertEquals(expected, actual);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void negativeBufferIsRejected() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    try {
+      request.setBuffer(-1);
+      Assert.fail("expected an IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // Expected.
+    }
+    Assert.assertFalse(request.hasConstraints());
+  }
+
+  @Test
+  public void negativeBufferReadFromJsonFailsValidation() {
+    MeetingRequest request = new Gson().fromJson(
+        "{\"attendees\": [\"Person A\"], \"duration\": 60, \"buffer\": -15}",
+        MeetingRequest.class);
+
+    try {
+      request.validate();
+      Assert.fail("expected an IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void negativeRoomCapacityReadFromJsonFailsValidation() {
+    MeetingRequest request = new Gson().fromJson(
+        "{\"attendees\": [\"Person A\"], \"duration\": 60, \"room_capacity\": -4}",
+        MeetingRequest.class);
+
+    try {
+      request.validate();
+      Assert.fail("expected an IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // Expected.
+    }
+  }
+
+  @Test
+  public void constraintsCanBeAddedToRequestsReadFromJson() {
+    MeetingRequest request = new Gson().fromJson(
+        "{\"attendees\": [\"Person A\"], \"duration\": 60}", MeetingRequest.class);
+
+    request.setWorkingHours(PERSON_A, Arrays.asList(TimeRange.fromStartDuration(540, 480)));
+    request.addPreferredWindow(TimeRange.fromStartDuration(600, 120));
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartDuration(540, 480)),
+        request.getWorkingHours().get(PERSON_A));
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartDuration(600, 120)),
+        request.getPreferredWindows());
+    Assert.assertTrue(request.hasConstraints());
+  }
+}
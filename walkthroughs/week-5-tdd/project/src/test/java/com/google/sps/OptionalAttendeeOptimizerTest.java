@@ -0,0 +1,89 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class OptionalAttendeeOptimizerTest {
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  @Test
+  public void nobodyFitsReturnsMeetingTimes() {
+    List<TimeRange> meetingTimes =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false));
+    List<List<TimeRange>> optionalBusy = new ArrayList<>();
+    optionalBusy.add(new ArrayList<>(Arrays.asList(TimeRange.WHOLE_DAY)));
+
+    List<TimeRange> actual = OptionalAttendeeOptimizer.mostAttendedWindows(
+        meetingTimes, optionalBusy, DURATION_30_MINUTES);
+
+    Assert.assertEquals(meetingTimes, actual);
+  }
+
+  @Test
+  public void attendeeMustBeFreeForWholeMeeting() {
+    // Optional A is free for the first half hour, B for the second. No single 60 minute meeting
+    // fits either of them, so only the required window comes back.
+    //
+    // Required: |-----------|
+    // Optional: |~~A~~|
+    // Optional:       |~~B~~|
+    List<TimeRange> meetingTimes =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false));
+    List<List<TimeRange>> optionalBusy = new ArrayList<>();
+    optionalBusy.add(new ArrayList<>(Arrays.asList(
+        TimeRange.fromStartEnd(TIME_0830AM, TimeRange.END_OF_DAY, true))));
+    optionalBusy.add(new ArrayList<>(Arrays.asList(
+        TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false))));
+
+    List<TimeRange> actual = OptionalAttendeeOptimizer.mostAttendedWindows(
+        meetingTimes, optionalBusy, DURATION_60_MINUTES);
+
+    Assert.assertEquals(meetingTimes, actual);
+  }
+
+  @Test
+  public void handlesHundredsOfOptionalAttendees() {
+    // Attendee i is busy until 10:00 plus i minutes, so everyone is free only after the last of
+    // them finishes.
+    int attendees = 600;
+    List<List<TimeRange>> optionalBusy = new ArrayList<>();
+    for (int i = 0; i < attendees; i++) {
+      optionalBusy.add(new ArrayList<>(
+          Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1000AM + i, false))));
+    }
+
+    List<TimeRange> actual = OptionalAttendeeOptimizer.mostAttendedWindows(
+        Arrays.asList(TimeRange.WHOLE_DAY), optionalBusy, DURATION_30_MINUTES);
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TIME_1000AM + attendees - 1, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+}
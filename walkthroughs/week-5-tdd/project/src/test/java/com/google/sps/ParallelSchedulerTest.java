@@ -0,0 +1,122 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ParallelSchedulerTest {
+  private static final int ATTENDEES = 200;
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static ForkJoinPool pool;
+
+  @BeforeClass
+  public static void startPool() {
+    pool = new ForkJoinPool(4);
+  }
+
+  @AfterClass
+  public static void stopPool() {
+    pool.shutdown();
+  }
+
+  @Test
+  public void splitRequestsMatchTheSweep() {
+    Random random = new Random(3);
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(randomEvents(random));
+
+    for (int threshold : new int[] {1, 3, 16, ATTENDEES}) {
+      ParallelScheduler scheduler = new ParallelScheduler(pool, threshold);
+      for (int i = 0; i < 20; i++) {
+        MeetingRequest request = randomRequest(random);
+
+        Assert.assertEquals(new SweepLineScheduler().query(index, request),
+            scheduler.query(index, request));
+      }
+    }
+  }
+
+  @Test
+  public void searchesTheWholeHorizon() {
+    // Person 0 is busy for the first hour of each of three days.
+    List<Event> events = new ArrayList<>();
+    for (int day = 0; day < 3; day++) {
+      events.add(new Event("Event " + day, TimeRange.fromStartDuration(day * 24 * 60, 60),
+          Arrays.asList(person(0))));
+    }
+    TimeRange horizon = TimeRange.fromStartDuration(0, 3 * 24 * 60);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(person(0), person(1), person(2)),
+        DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual =
+        new ParallelScheduler(pool, 1).query(AttendeeBusyIndex.of(events), request, horizon);
+
+    Assert.assertEquals(
+        new SweepLineScheduler().query(AttendeeBusyIndex.of(events), request, horizon), actual);
+    Assert.assertEquals(3, actual.size());
+  }
+
+  @Test
+  public void rejectsNonPositiveThreshold() {
+    try {
+      new ParallelScheduler(pool, 0);
+      Assert.fail("expected an IllegalArgumentException");
+    } catch (IllegalArgumentException expected) {
+      // Expected.
+    }
+  }
+
+  private static List<Event> randomEvents(Random random) {
+    List<Event> events = new ArrayList<>();
+    for (int person = 0; person < ATTENDEES; person++) {
+      for (int i = 0; i < 3; i++) {
+        int start = random.nextInt(TimeRange.END_OF_DAY - 60);
+        events.add(new Event("Event " + person + "-" + i,
+            TimeRange.fromStartDuration(start, 5 + random.nextInt(25)),
+            Arrays.asList(person(person))));
+      }
+    }
+    return events;
+  }
+
+  private static MeetingRequest randomRequest(Random random) {
+    List<String> attendees = new ArrayList<>();
+    for (int person = 0; person < ATTENDEES; person++) {
+      if (random.nextInt(4) == 0) {
+        attendees.add(person(person));
+      }
+    }
+    MeetingRequest request = new MeetingRequest(attendees, 10 + random.nextInt(20));
+    request.addOptionalAttendee(person(random.nextInt(ATTENDEES)));
+    return request;
+  }
+
+  private static String person(int i) {
+    return "Person " + i;
+  }
+}
@@ -0,0 +1,138 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  private AttendeeBusyIndex index;
+  private QueryCache cache;
+
+  @Before
+  public void setUp() {
+    index = AttendeeBusyIndex.of(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A))));
+    cache = new QueryCache(index, new FindMeetingQuery(FindMeetingQuery.Mode.SWEEP), 2);
+  }
+
+  @Test
+  public void attendeeOrderDoesNotMatter() {
+    cache.query(new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES));
+    cache.query(new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A), DURATION_30_MINUTES));
+
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(1, cache.getMisses());
+    Assert.assertEquals(0.5, cache.getHitRate(), 0);
+  }
+
+  @Test
+  public void constraintsArePartOfTheKey() {
+    MeetingRequest plain = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest buffered = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    buffered.setBuffer(DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = cache.query(plain);
+    Collection<TimeRange> bufferedActual = cache.query(buffered);
+
+    Assert.assertEquals(0, cache.getHits());
+    Assert.assertNotEquals(actual, bufferedActual);
+  }
+
+  @Test
+  public void unknownAttendeesAreToldApartByName() {
+    // Neither person has any events, but only Person B has working hours.
+    Collection<TimeRange> hours =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_0500PM, false));
+    MeetingRequest withHours = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    withHours.setWorkingHours(PERSON_B, hours);
+    MeetingRequest withoutHours =
+        new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+    withoutHours.setWorkingHours(PERSON_B, hours);
+
+    Collection<TimeRange> restricted = cache.query(withHours);
+    Collection<TimeRange> actual = cache.query(withoutHours);
+
+    Assert.assertEquals(0, cache.getHits());
+    Assert.assertEquals(hours, restricted);
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), actual);
+  }
+
+  @Test
+  public void changeToAnInvolvedAttendeeInvalidates() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    cache.query(request);
+
+    Event event = new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY,
+        true), Arrays.asList(PERSON_A));
+    index.add(event);
+    Collection<TimeRange> actual = cache.query(request);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false)), actual);
+    Assert.assertEquals(0, cache.getHits());
+    Assert.assertEquals(1, cache.getInvalidations());
+  }
+
+  @Test
+  public void changeToAnUnrelatedAttendeeKeepsTheAnswer() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    cache.query(request);
+
+    index.add(new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY,
+        true), Arrays.asList(PERSON_C)));
+    cache.query(request);
+
+    Assert.assertEquals(1, cache.getHits());
+    Assert.assertEquals(0, cache.getInvalidations());
+  }
+
+  @Test
+  public void leastRecentlyUsedAnswerIsEvicted() {
+    MeetingRequest first = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest second = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest third = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    cache.query(first);
+    cache.query(second);
+    // Touch the first request so the second is the least recently used.
+    cache.query(first);
+    cache.query(third);
+    cache.query(first);
+
+    Assert.assertEquals(2, cache.size());
+    Assert.assertEquals(1, cache.getEvictions());
+    Assert.assertEquals(2, cache.getHits());
+  }
+}
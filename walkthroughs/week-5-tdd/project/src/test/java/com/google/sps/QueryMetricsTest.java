@@ -0,0 +1,131 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryMetricsTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void scanTimesEveryPhase() {
+    QueryMetrics metrics = new QueryMetrics();
+    Event event = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    new FindMeetingQuery(FindMeetingQuery.Mode.SCAN, metrics).query(Arrays.asList(event), request);
+
+    Assert.assertEquals(1, metrics.getEventsScanned());
+    Assert.assertEquals(1, metrics.getPhase(QueryMetrics.Phase.QUERY).getCount());
+    Assert.assertEquals(1, metrics.getPhase(QueryMetrics.Phase.INIT_SCHEDULES).getCount());
+    Assert.assertEquals(1, metrics.getPhase(QueryMetrics.Phase.SCHEDULE_EVENTS).getCount());
+    Assert.assertEquals(
+        1, metrics.getPhase(QueryMetrics.Phase.DETERMINE_AVAILABLE_TIME).getCount());
+  }
+
+  @Test
+  public void indexQueriesAreTimed() {
+    QueryMetrics metrics = new QueryMetrics();
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    new FindMeetingQuery(FindMeetingQuery.Mode.SWEEP, metrics).query(index, request);
+
+    Assert.assertEquals(1, metrics.getPhase(QueryMetrics.Phase.QUERY).getCount());
+    Assert.assertEquals(0, metrics.getEventsScanned());
+    Assert.assertEquals(1, metrics.getBusyRangesRead());
+  }
+
+  @Test
+  public void everyEngineTimesItsPhases() {
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A, PERSON_B))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    for (FindMeetingQuery.Mode mode : FindMeetingQuery.Mode.values()) {
+      QueryMetrics metrics = new QueryMetrics();
+
+      new FindMeetingQuery(mode, metrics).query(index, request);
+
+      Assert.assertEquals(mode.toString(), 2, metrics.getBusyRangesRead());
+      Assert.assertEquals(mode.toString(), 1,
+          metrics.getPhase(QueryMetrics.Phase.INIT_SCHEDULES).getCount());
+      Assert.assertEquals(mode.toString(), 1,
+          metrics.getPhase(QueryMetrics.Phase.DETERMINE_AVAILABLE_TIME).getCount());
+      Assert.assertEquals(mode.toString(), 1,
+          metrics.getPhase(QueryMetrics.Phase.DETERMINE_FREQUENCY).getCount());
+    }
+  }
+
+  @Test
+  public void sweepOverEventsTimesItsPhases() {
+    QueryMetrics metrics = new QueryMetrics();
+    Event event = new Event("Event 1", TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+        Arrays.asList(PERSON_A));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    new FindMeetingQuery(FindMeetingQuery.Mode.SWEEP, metrics).query(Arrays.asList(event), request);
+
+    Assert.assertEquals(1, metrics.getEventsScanned());
+    Assert.assertEquals(1, metrics.getPhase(QueryMetrics.Phase.INIT_SCHEDULES).getCount());
+    Assert.assertEquals(1, metrics.getPhase(QueryMetrics.Phase.SCHEDULE_EVENTS).getCount());
+    Assert.assertEquals(
+        1, metrics.getPhase(QueryMetrics.Phase.DETERMINE_AVAILABLE_TIME).getCount());
+  }
+
+  @Test
+  public void writesPrometheusText() throws IOException {
+    QueryMetrics metrics = new QueryMetrics();
+    metrics.recordPhase(QueryMetrics.Phase.PARSE, 2_000_000);
+    metrics.recordRequest("/query", 5_000_000);
+    metrics.addEventsScanned(7);
+    metrics.addBusyRangesRead(5);
+    metrics.addRangesReturned(3);
+
+    StringWriter out = new StringWriter();
+    metrics.writePrometheus(out);
+    String text = out.toString();
+
+    Assert.assertTrue(text.contains("# TYPE meeting_query_phase_seconds summary\n"));
+    Assert.assertTrue(text.contains("meeting_query_phase_seconds_count{phase=\"parse\"} 1\n"));
+    Assert.assertTrue(text.contains("meeting_query_phase_seconds_sum{phase=\"parse\"} 0.002\n"));
+    Assert.assertTrue(
+        text.contains("http_request_duration_seconds_count{endpoint=\"/query\"} 1\n"));
+    Assert.assertTrue(text.contains(
+        "http_request_duration_seconds{endpoint=\"/query\",quantile=\"0.99\"} 0.005"));
+    Assert.assertTrue(text.contains("meeting_query_events_scanned_total 7\n"));
+    Assert.assertTrue(text.contains("meeting_query_busy_ranges_read_total 5\n"));
+    Assert.assertTrue(text.contains("meeting_query_ranges_returned_total 3\n"));
+  }
+}
@@ -0,0 +1,78 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurrenceTest {
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final TimeRange STANDUP =
+      TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES);
+
+  @Test
+  public void onlyOccurrencesInTheWindowAreGenerated() {
+    Event event = new Event("Standup", STANDUP, Collections.<String>emptyList(),
+        Recurrence.daily());
+    // Starts halfway through the standup on day 1000 and ends before the one on day 1002.
+    TimeRange window = TimeRange.fromStartEnd(
+        1000 * Recurrence.DAY + TIME_0900AM + 15, 1002 * Recurrence.DAY + TIME_0900AM, false);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartDuration(1000 * Recurrence.DAY + TIME_0900AM, DURATION_30_MINUTES),
+            TimeRange.fromStartDuration(1001 * Recurrence.DAY + TIME_0900AM, DURATION_30_MINUTES)),
+        event.occurrences(window));
+  }
+
+  @Test
+  public void countAndUntilEndTheSeries() {
+    TimeRange twoWeeks = TimeRange.fromStartDuration(0, 2 * Recurrence.WEEK);
+    Event threeTimes = new Event("Standup", STANDUP, Collections.<String>emptyList(),
+        Recurrence.daily().times(3));
+    Event untilDayFive = new Event("Standup", STANDUP, Collections.<String>emptyList(),
+        Recurrence.daily().until(5 * Recurrence.DAY));
+
+    Assert.assertEquals(3, threeTimes.occurrences(twoWeeks).size());
+    Assert.assertEquals(5, untilDayFive.occurrences(twoWeeks).size());
+  }
+
+  @Test
+  public void occurrencesBeforeTheFirstAreNotGenerated() {
+    Event event = new Event("1:1", STANDUP, Collections.<String>emptyList(), Recurrence.weekly());
+
+    Assert.assertEquals(Arrays.asList(),
+        event.occurrences(TimeRange.fromStartEnd(-Recurrence.WEEK, TIME_0900AM, false)));
+  }
+
+  @Test
+  public void recurrenceIsPartOfEquality() {
+    Event once = new Event("Standup", STANDUP, Collections.<String>emptyList());
+    Event daily = new Event("Standup", STANDUP, Collections.<String>emptyList(),
+        Recurrence.daily());
+
+    Assert.assertNotEquals(once, daily);
+    Assert.assertEquals(daily, new Event("Standup", STANDUP, Collections.<String>emptyList(),
+        Recurrence.daily()));
+  }
+}
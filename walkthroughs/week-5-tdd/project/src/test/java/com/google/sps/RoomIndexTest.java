@@ -0,0 +1,185 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RoomIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String ROOM_SMALL = "Room Small";
+  private static final String ROOM_LARGE = "Room Large";
+
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  @Test
+  public void meetingNeedsAFreeRoom() {
+    // The only room is booked from 9:00 to 10:00, while the attendee is free all day.
+    List<Event> events = Arrays.asList(new Event("Booked",
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), Arrays.asList(ROOM_SMALL)));
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(events);
+    RoomIndex rooms =
+        RoomIndex.of(Arrays.asList(new Room(ROOM_SMALL, 4)), index, TimeRange.WHOLE_DAY);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual =
+        new FindMeetingQuery().query(index, rooms, request, TimeRange.WHOLE_DAY);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void roomsThatAreTooSmallDoNotCount() {
+    // The small room is free at 9:00 but only the large one seats everyone, and it is booked.
+    List<Event> events = Arrays.asList(new Event("Booked",
+        TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), Arrays.asList(ROOM_LARGE)));
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(events);
+    RoomIndex rooms = RoomIndex.of(
+        Arrays.asList(new Room(ROOM_SMALL, 4), new Room(ROOM_LARGE, 12)), index,
+        TimeRange.WHOLE_DAY);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.setRoomCapacity(8);
+
+    Collection<TimeRange> actual =
+        new FindMeetingQuery().query(index, rooms, request, TimeRange.WHOLE_DAY);
+
+    for (TimeRange range : actual) {
+      Assert.assertFalse(range.overlaps(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)));
+    }
+    Assert.assertNull(rooms.findRoom(TimeRange.fromStartDuration(TIME_0900AM, 30), 8));
+    Assert.assertEquals(new Room(ROOM_SMALL, 4),
+        rooms.findRoom(TimeRange.fromStartDuration(TIME_0900AM, 30), 2));
+  }
+
+  @Test
+  public void roomsCanTakeTurns() {
+    // Neither room is free for the whole hour from 9:00 to 10:30, but together they cover it.
+    List<Event> events = Arrays.asList(
+        new Event("Small booked",
+            TimeRange.fromStartEnd(TIME_0930AM, TIME_1100AM, false), Arrays.asList(ROOM_SMALL)),
+        new Event("Large booked", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM,
+            false), Arrays.asList(ROOM_LARGE)),
+        new Event("Large booked later",
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(ROOM_LARGE)),
+        new Event("Person A busy",
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Person A busy later",
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A)));
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(events);
+    RoomIndex rooms = RoomIndex.of(
+        Arrays.asList(new Room(ROOM_SMALL, 4), new Room(ROOM_LARGE, 12)), index,
+        TimeRange.WHOLE_DAY);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual =
+        new FindMeetingQuery().query(index, rooms, request, TimeRange.WHOLE_DAY);
+
+    // Starts from 8:30 to 9:00 fit the small room and starts from 9:00 to 9:30 fit the large one.
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false)), actual);
+    Assert.assertEquals(new Room(ROOM_SMALL, 4),
+        rooms.findRoom(TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES), 0));
+    Assert.assertEquals(new Room(ROOM_LARGE, 12),
+        rooms.findRoom(TimeRange.fromStartDuration(TIME_0930AM, DURATION_30_MINUTES), 0));
+  }
+
+  @Test
+  public void noRoomBigEnough() {
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Collections.<Event>emptyList());
+    RoomIndex rooms =
+        RoomIndex.of(Arrays.asList(new Room(ROOM_SMALL, 4)), index, TimeRange.WHOLE_DAY);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.setRoomCapacity(5);
+
+    Collection<TimeRange> actual =
+        new FindMeetingQuery().query(index, rooms, request, TimeRange.WHOLE_DAY);
+
+    Assert.assertEquals(Arrays.asList(), actual);
+  }
+
+  @Test
+  public void manyRoomsMatchCheckingEachRoom() {
+    // 2000 rooms, each booked for a different hour-long slot, against a brute-force check.
+    List<Room> roomList = new ArrayList<>();
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      String name = "Room " + i;
+      roomList.add(new Room(name, 2 + i % 20));
+      int start = (i * 37) % (TimeRange.WHOLE_DAY.duration() - DURATION_1_HOUR);
+      events.add(new Event("Booked " + i,
+          TimeRange.fromStartDuration(start, DURATION_1_HOUR + i % 300), Arrays.asList(name)));
+      events.add(new Event("Booked again " + i,
+          TimeRange.fromStartDuration((start + 600) % 1200, DURATION_1_HOUR),
+          Arrays.asList(name)));
+    }
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(events);
+    RoomIndex rooms = RoomIndex.of(roomList, index, TimeRange.WHOLE_DAY);
+
+    for (int capacity : new int[] {0, 10, 21, 22}) {
+      for (int start = 0; start + DURATION_1_HOUR <= TimeRange.WHOLE_DAY.duration();
+          start += 7) {
+        TimeRange when = TimeRange.fromStartDuration(start, DURATION_1_HOUR);
+        boolean expected = false;
+        for (Room room : roomList) {
+          if (room.getCapacity() >= capacity && isFree(index.getBusyTimes(room.getName()), when)) {
+            expected = true;
+            break;
+          }
+        }
+        IntervalBuffer fits = rooms.restrict(IntervalBuffer.of(Arrays.asList(when)), capacity,
+            DURATION_1_HOUR);
+        Assert.assertEquals(expected, fits.size() == 1);
+        Assert.assertEquals(expected, rooms.findRoom(when, capacity) != null);
+      }
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void roomNamesMustBeDistinct() {
+    RoomIndex.of(Arrays.asList(new Room(ROOM_SMALL, 4), new Room(ROOM_SMALL, 8)),
+        AttendeeBusyIndex.of(Collections.<Event>emptyList()), TimeRange.WHOLE_DAY);
+  }
+
+  private static boolean isFree(List<TimeRange> busy, TimeRange when) {
+    for (TimeRange range : busy) {
+      if (range.overlaps(when)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,258 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SlotRankerTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_1_HOUR = 60;
+
+  @Test
+  public void closestToPreferredStartWins() {
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_1000AM, TIME_1200PM, false),
+            Arrays.asList(PERSON_A))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    List<RankedSlot> actual =
+        new SlotRanker(TIME_1100AM).topK(index, request, TimeRange.WHOLE_DAY, 1);
+
+    // The first free hour after the event is closer than the last one before it.
+    Assert.assertEquals(1, actual.size());
+    Assert.assertEquals(
+        TimeRange.fromStartDuration(TIME_1200PM, DURATION_1_HOUR), actual.get(0).getWhen());
+  }
+
+  @Test
+  public void optionalAttendeesOutweighDistance() {
+    // Person B is busy at the preferred time, so the best slot moves to just before B's event.
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    List<RankedSlot> actual =
+        new SlotRanker(TIME_0900AM).topK(index, request, TimeRange.WHOLE_DAY, 1);
+
+    Assert.assertEquals(
+        TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES), actual.get(0).getWhen());
+    Assert.assertEquals(1, actual.get(0).getOptionalAttendees());
+  }
+
+  @Test
+  public void preferredWindowOutweighsDistance() {
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Collections.<Event>emptyList());
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addPreferredWindow(TimeRange.fromStartEnd(TIME_0930AM, TIME_1100AM, false));
+
+    List<RankedSlot> actual =
+        new SlotRanker(TIME_0900AM).topK(index, request, TimeRange.WHOLE_DAY, 1);
+
+    Assert.assertEquals(
+        TimeRange.fromStartDuration(TIME_0930AM, DURATION_1_HOUR), actual.get(0).getWhen());
+  }
+
+  @Test
+  public void matchesBruteForce() {
+    // Random calendars against a scorer that tries every start and greedily keeps the best slots
+    // that do not overlap the ones already kept.
+    Random random = new Random(2020);
+    for (int round = 0; round < 500; round++) {
+      List<Event> events = new ArrayList<>();
+      for (String person : Arrays.asList(PERSON_A, PERSON_B, PERSON_C)) {
+        for (int i = random.nextInt(8); i > 0; i--) {
+          int start = random.nextInt(TimeRange.END_OF_DAY);
+          events.add(new Event("Event " + events.size(), TimeRange.fromStartDuration(start,
+              Math.min(1 + random.nextInt(120), TimeRange.END_OF_DAY + 1 - start)),
+              Arrays.asList(person)));
+        }
+      }
+      int duration = 15 + random.nextInt(120);
+      MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), duration);
+      request.addOptionalAttendee(PERSON_B);
+      request.addOptionalAttendee(PERSON_C);
+      if (random.nextBoolean()) {
+        int start = random.nextInt(TimeRange.END_OF_DAY - 240);
+        request.addPreferredWindow(TimeRange.fromStartDuration(start, 60 + random.nextInt(180)));
+      }
+      int preferredStart = random.nextInt(TimeRange.END_OF_DAY + 1);
+      int k = 1 + random.nextInt(6);
+
+      List<RankedSlot> actual = new SlotRanker(preferredStart)
+          .topK(AttendeeBusyIndex.of(events), request, TimeRange.WHOLE_DAY, k);
+      List<RankedSlot> expected = bruteForce(events, request, preferredStart, k);
+
+      Assert.assertEquals(expected.size(), actual.size());
+      for (int i = 0; i < expected.size(); i++) {
+        Assert.assertEquals(expected.get(i).getWhen(), actual.get(i).getWhen());
+        Assert.assertEquals(expected.get(i).getScore(), actual.get(i).getScore(), 1e-9);
+      }
+    }
+  }
+
+  @Test
+  public void slotsDoNotOverlap() {
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Collections.<Event>emptyList());
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    List<RankedSlot> actual =
+        new SlotRanker(TIME_1000AM).topK(index, request, TimeRange.WHOLE_DAY, 3);
+
+    Assert.assertEquals(TimeRange.fromStartDuration(TIME_1000AM, DURATION_1_HOUR),
+        actual.get(0).getWhen());
+    Assert.assertEquals(TimeRange.fromStartDuration(TIME_0900AM, DURATION_1_HOUR),
+        actual.get(1).getWhen());
+    Assert.assertEquals(TimeRange.fromStartDuration(TIME_1100AM, DURATION_1_HOUR),
+        actual.get(2).getWhen());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void tooManySlotsAreRejected() {
+    new SlotRanker(TIME_0900AM).topK(AttendeeBusyIndex.of(Collections.<Event>emptyList()),
+        new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR), TimeRange.WHOLE_DAY,
+        SlotRanker.MAX_K + 1);
+  }
+
+  @Test
+  public void noSlotsWhenNobodyIsFree() {
+    AttendeeBusyIndex index = AttendeeBusyIndex.of(Arrays.asList(
+        new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<RankedSlot> actual =
+        new SlotRanker(TIME_0900AM).topK(index, request, TimeRange.WHOLE_DAY, 3);
+
+    Assert.assertEquals(Arrays.asList(), actual);
+  }
+
+  /**
+   * Scores every start of a single-day request with the default weights, then keeps the best
+   * starts that do not overlap one already kept.
+   */
+  private static List<RankedSlot> bruteForce(
+      List<Event> events, MeetingRequest request, int preferredStart, int k) {
+    int day = TimeRange.END_OF_DAY + 1;
+    boolean[] requiredBusy = new boolean[day];
+    List<boolean[]> optionalBusy = new ArrayList<>();
+    for (String attendee : request.getOptionalAttendees()) {
+      optionalBusy.add(busyMinutes(events, attendee));
+    }
+    for (String attendee : request.getAttendees()) {
+      boolean[] busy = busyMinutes(events, attendee);
+      for (int minute = 0; minute < day; minute++) {
+        requiredBusy[minute] |= busy[minute];
+      }
+    }
+
+    int duration = (int) request.getDuration();
+    List<RankedSlot> all = new ArrayList<>();
+    for (int start = 0; start + duration <= day; start++) {
+      int end = start + duration;
+      if (anyBusy(requiredBusy, start, end)) {
+        continue;
+      }
+      int windowStart = start;
+      while (windowStart > 0 && !requiredBusy[windowStart - 1]) {
+        windowStart--;
+      }
+      int windowEnd = end;
+      while (windowEnd < day && !requiredBusy[windowEnd]) {
+        windowEnd++;
+      }
+
+      int optional = 0;
+      for (boolean[] busy : optionalBusy) {
+        if (!anyBusy(busy, start, end)) {
+          optional++;
+        }
+      }
+      int fragmented = 0;
+      if (start - windowStart < duration) {
+        fragmented += start - windowStart;
+      }
+      if (windowEnd - end < duration) {
+        fragmented += windowEnd - end;
+      }
+      double score = 60.0 * optional - Math.abs(start - preferredStart) - 0.5 * fragmented;
+      for (TimeRange window : request.getPreferredWindows()) {
+        if (window.start() <= start && end <= window.end()) {
+          score += 60;
+          break;
+        }
+      }
+      all.add(new RankedSlot(TimeRange.fromStartEnd(start, end, false), optional, score));
+    }
+
+    Collections.sort(all, RankedSlot.BEST_FIRST);
+    List<RankedSlot> kept = new ArrayList<>();
+    for (RankedSlot slot : all) {
+      if (kept.size() == k) {
+        break;
+      }
+      boolean overlaps = false;
+      for (RankedSlot other : kept) {
+        overlaps |= other.getWhen().overlaps(slot.getWhen());
+      }
+      if (!overlaps) {
+        kept.add(slot);
+      }
+    }
+    return kept;
+  }
+
+  private static boolean[] busyMinutes(List<Event> events, String attendee) {
+    boolean[] busy = new boolean[TimeRange.END_OF_DAY + 1];
+    for (Event event : events) {
+      if (event.getAttendees().contains(attendee)) {
+        for (int minute = event.getWhen().start(); minute < event.getWhen().end(); minute++) {
+          busy[minute] = true;
+        }
+      }
+    }
+    return busy;
+  }
+
+  private static boolean anyBusy(boolean[] busy, int start, int end) {
+    for (int minute = start; minute < end; minute++) {
+      if (busy[minute]) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,81 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.google.sps.Event;
+import com.google.sps.Events;
+import com.google.sps.Recurrence;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarJsonTest {
+  @Test
+  public void eventsKeepTheirDefaultShape() throws IOException {
+    StringWriter out = new StringWriter();
+    try (JsonWriter writer = new JsonWriter(out)) {
+      CalendarJson.writeEvents(writer, Arrays.asList(Events.events));
+    }
+
+    Assert.assertEquals(JsonParser.parseString(new Gson().toJson(Events.events)),
+        JsonParser.parseString(out.toString()));
+  }
+
+  @Test
+  public void timeRangesKeepTheirDefaultShape() throws IOException {
+    StringWriter out = new StringWriter();
+    try (JsonWriter writer = new JsonWriter(out)) {
+      CalendarJson.writeTimeRanges(writer, Arrays.asList(TimeRange.WHOLE_DAY));
+    }
+
+    Assert.assertEquals("[{\"start\":0,\"duration\":1440}]", out.toString());
+  }
+
+  @Test
+  public void eventsRoundTrip() {
+    Event[] actual = CalendarJson.GSON.fromJson(
+        CalendarJson.GSON.toJson(Events.events), Event[].class);
+
+    Assert.assertArrayEquals(Events.events, actual);
+  }
+
+  @Test
+  public void recurringEventsRoundTrip() {
+    Event[] expected = {
+        new Event("Standup", TimeRange.fromStartDuration(9 * 60, 15), Arrays.asList("Person A"),
+            Recurrence.daily()),
+        new Event("Sprint review", TimeRange.fromStartDuration(14 * 60, 60),
+            Arrays.asList("Person A", "Person B"), Recurrence.every(2 * Recurrence.WEEK).times(6)),
+        new Event("Onboarding", TimeRange.fromStartDuration(10 * 60, 30), Arrays.asList("Person C"),
+            Recurrence.daily().until(5 * Recurrence.DAY))};
+
+    String json = CalendarJson.GSON.toJson(expected);
+    Event[] actual = CalendarJson.GSON.fromJson(json, Event[].class);
+
+    Assert.assertArrayEquals(expected, actual);
+    Assert.assertEquals(JsonParser.parseString("{\"period\":20160,\"count\":6}"),
+        JsonParser.parseString(json).getAsJsonArray().get(1).getAsJsonObject().get("recurrence"));
+  }
+}